@@ -0,0 +1,65 @@
+package kirok.querydsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 부하 테스트용 데이터 적재. loadtest.seed.members 명의 회원을 loadtest.seed.teams 개 팀에 나누어 넣는다.
+ */
+@Profile("loadtest")
+@Component
+@RequiredArgsConstructor
+public class LoadTestDataSeeder {
+
+    private final LoadTestDataSeederService seederService;
+
+    @PostConstruct
+    public void init() {
+        seederService.seed();
+    }
+
+    @Component
+    @RequiredArgsConstructor
+    static class LoadTestDataSeederService {
+
+        private static final int FLUSH_SIZE = 1000;
+
+        private final EntityManager em;
+
+        @Value("${loadtest.seed.members:100000}")
+        private int memberCount;
+
+        @Value("${loadtest.seed.teams:20}")
+        private int teamCount;
+
+        @Transactional
+        public void seed() {
+            List<Team> teams = new ArrayList<>(teamCount);
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teams.add(team);
+            }
+
+            for (int i = 0; i < memberCount; i++) {
+                Team team = teams.get(i % teamCount);
+                em.persist(new Member("member" + i, i % 100, team));
+
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                    teams.replaceAll(t -> em.getReference(Team.class, t.getId()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package kirok.querydsl.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 부하 테스트 결과. 실행마다 JSON 파일 하나로 저장해서 실행 간 비교에 쓴다. 지연 시간 단위는 마이크로초.
+ */
+@Getter
+public class LoadTestReport {
+
+    private final String startedAt;
+    private final int seedMembers;
+    private final int seedTeams;
+    private final long durationSeconds;
+    private final List<EndpointResult> endpoints = new ArrayList<>();
+
+    public LoadTestReport(LocalDateTime startedAt, int seedMembers, int seedTeams,
+        long durationSeconds) {
+        this.startedAt = startedAt.toString();
+        this.seedMembers = seedMembers;
+        this.seedTeams = seedTeams;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public void add(OpenLoopLoadGenerator.Result result) {
+        endpoints.add(new EndpointResult(result));
+    }
+
+    public Path writeTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        String fileName = "members-" + LocalDateTime.parse(startedAt)
+            .format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        Path file = dir.resolve(fileName);
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(file.toFile(), this);
+        return file;
+    }
+
+    @Getter
+    public static class EndpointResult {
+
+        private final String path;
+        private final int targetRate;
+        private final double throughput;
+        private final long completed;
+        private final long errors;
+        private final Latency latency;
+        private final Latency uncorrectedLatency;
+
+        EndpointResult(OpenLoopLoadGenerator.Result result) {
+            this.path = result.getPath();
+            this.targetRate = result.getTargetRate();
+            this.throughput = result.getThroughput();
+            this.completed = result.getCompleted();
+            this.errors = result.getErrors();
+            this.latency = new Latency(result.getCorrected());
+            this.uncorrectedLatency = new Latency(result.getUncorrected());
+        }
+    }
+
+    @Getter
+    public static class Latency {
+
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Latency(Histogram histogram) {
+            this.mean = histogram.getMean();
+            this.p50 = histogram.getValueAtPercentile(50);
+            this.p90 = histogram.getValueAtPercentile(90);
+            this.p99 = histogram.getValueAtPercentile(99);
+            this.p999 = histogram.getValueAtPercentile(99.9);
+            this.max = histogram.getMaxValue();
+        }
+    }
+}
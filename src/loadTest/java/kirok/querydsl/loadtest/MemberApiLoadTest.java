@@ -0,0 +1,97 @@
+package kirok.querydsl.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * /v1, /v2, /v3 members API 부하 테스트.
+ * <p>
+ * 실행: ./gradlew loadTest -Dloadtest.rate=500 -Dloadtest.seed.members=200000
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class MemberApiLoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Value("${loadtest.seed.members}")
+    int seedMembers;
+
+    @Value("${loadtest.seed.teams}")
+    int seedTeams;
+
+    @Value("${loadtest.rate}")
+    int rate;
+
+    @Value("${loadtest.warmup-seconds}")
+    long warmupSeconds;
+
+    @Value("${loadtest.duration-seconds}")
+    long durationSeconds;
+
+    @Value("${loadtest.output-dir}")
+    String outputDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void memberEndpoints() throws Exception {
+
+        //given
+        HttpClient client = HttpClient.newBuilder()
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client);
+        String baseUrl = "http://localhost:" + port;
+
+        LoadTestReport report =
+            new LoadTestReport(LocalDateTime.now(), seedMembers, seedTeams, durationSeconds);
+
+        //when
+        for (String path : new String[]{"/v1/members", "/v2/members", "/v3/members"}) {
+            boolean paged = !path.startsWith("/v1");
+            generator.run(workload(baseUrl, path, paged, 1L), rate,
+                Duration.ofSeconds(warmupSeconds));
+            OpenLoopLoadGenerator.Result result = generator.run(
+                workload(baseUrl, path, paged, 42L), rate, Duration.ofSeconds(durationSeconds));
+            report.add(result);
+        }
+
+        Path file = report.writeTo(Paths.get(outputDir));
+        System.out.println("load test report = " + file.toAbsolutePath());
+
+        //then
+        for (LoadTestReport.EndpointResult result : report.getEndpoints()) {
+            System.out.println(result.getPath()
+                + " throughput = " + result.getThroughput()
+                + " p99(us) = " + result.getLatency().getP99());
+            assertThat(result.getCompleted()).isGreaterThan(0);
+            assertThat(result.getErrors()).isEqualTo(0);
+        }
+    }
+
+    private MemberWorkload workload(String baseUrl, String path, boolean paged, long seed) {
+        return new MemberWorkload(baseUrl, path, paged, seedMembers, seedTeams, seed);
+    }
+}
@@ -0,0 +1,83 @@
+package kirok.querydsl.loadtest;
+
+import java.net.URI;
+import java.util.SplittableRandom;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * /v1, /v2, /v3 members API 에 보낼 요청을 만든다.
+ * <p>
+ * MemberSearchDto 조건(username, teamName, ageGoe, ageLoe)과 Pageable(page, size, sort)을 섞어서 만들고,
+ * 같은 seed 면 같은 요청 순서가 나오므로 실행 간 비교가 가능하다.
+ */
+public class MemberWorkload {
+
+    private static final String[] SORTS = {null, "id", "age", "username,desc"};
+
+    private final String baseUrl;
+    private final String path;
+    private final boolean paged;
+    private final int memberCount;
+    private final int teamCount;
+    private final SplittableRandom random;
+
+    public MemberWorkload(String baseUrl, String path, boolean paged, int memberCount,
+        int teamCount, long seed) {
+        this.baseUrl = baseUrl;
+        this.path = path;
+        this.paged = paged;
+        this.memberCount = memberCount;
+        this.teamCount = teamCount;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 요청 생성 스레드 하나에서만 호출한다.
+     */
+    public URI next() {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl).path(path);
+
+        int shape = random.nextInt(paged ? 5 : 4);
+        switch (shape) {
+            case 0:
+                // 단건 username 조회
+                builder.queryParam("username", "member" + random.nextInt(memberCount));
+                break;
+            case 1:
+                // 팀 + 좁은 나이 범위
+                int from = random.nextInt(100);
+                builder.queryParam("teamName", "team" + random.nextInt(teamCount))
+                    .queryParam("ageGoe", from)
+                    .queryParam("ageLoe", Math.min(99, from + 2));
+                break;
+            case 2:
+                // 나이 범위만
+                int goe = random.nextInt(100);
+                builder.queryParam("ageGoe", goe).queryParam("ageLoe", goe);
+                break;
+            case 3:
+                // 팀 + username
+                builder.queryParam("teamName", "team" + random.nextInt(teamCount))
+                    .queryParam("username", "member" + random.nextInt(memberCount));
+                break;
+            default:
+                // 조건 없는 페이지 조회
+                break;
+        }
+
+        if (paged) {
+            builder.queryParam("page", random.nextInt(50))
+                .queryParam("size", 10 + random.nextInt(41));
+            String sort = SORTS[random.nextInt(SORTS.length)];
+            if (sort != null) {
+                builder.queryParam("sort", sort);
+            }
+        }
+
+        return builder.build().encode().toUri();
+    }
+}
@@ -0,0 +1,123 @@
+package kirok.querydsl.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 고정 도착률(open model) 부하 발생기.
+ * <p>
+ * i 번째 요청의 의도된 시작 시각은 start + i * interval 로 고정된다. 서버가 느려져 발송이 밀려도 지연 시간은 의도된 시작
+ * 시각부터 재므로 coordinated omission 이 보정된다. 비교를 위해 실제 발송 시각 기준 지연 시간도 따로 기록한다.
+ */
+public class OpenLoopLoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    public OpenLoopLoadGenerator(HttpClient client) {
+        this.client = client;
+    }
+
+    public Result run(MemberWorkload workload, int ratePerSecond, Duration duration) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long totalRequests = duration.getSeconds() * ratePerSecond;
+
+        Result result = new Result(workload.getPath(), ratePerSecond);
+        ConcurrentLinkedQueue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            URI uri = workload.next();
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET()
+                .build();
+            long sent = System.nanoTime();
+
+            CompletableFuture<HttpResponse<Void>> future =
+                client.sendAsync(request, BodyHandlers.discarding());
+            inFlight.add(future.whenComplete((response, error) -> {
+                long done = System.nanoTime();
+                if (error != null || response.statusCode() >= 400) {
+                    result.errors.increment();
+                    return;
+                }
+                result.record(done - intended, done - sent);
+            }));
+
+            if (i % 1000 == 0) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0]))
+            .exceptionally(e -> null)
+            .join();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    public static class Result {
+
+        private final String path;
+        private final int targetRate;
+        private final Histogram corrected = new ConcurrentHistogram(3);
+        private final Histogram uncorrected = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+        private long elapsedNanos;
+
+        Result(String path, int targetRate) {
+            this.path = path;
+            this.targetRate = targetRate;
+        }
+
+        void record(long correctedNanos, long uncorrectedNanos) {
+            corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(correctedNanos));
+            uncorrected.recordValue(TimeUnit.NANOSECONDS.toMicros(uncorrectedNanos));
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getTargetRate() {
+            return targetRate;
+        }
+
+        public Histogram getCorrected() {
+            return corrected;
+        }
+
+        public Histogram getUncorrected() {
+            return uncorrected;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getCompleted() {
+            return corrected.getTotalCount();
+        }
+
+        public double getThroughput() {
+            return getCompleted() / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
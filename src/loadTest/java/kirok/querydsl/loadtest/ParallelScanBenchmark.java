@@ -0,0 +1,115 @@
+package kirok.querydsl.loadtest;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManagerFactory;
+import kirok.querydsl.dto.QMemberTeamDto;
+import kirok.querydsl.repository.support.IdRange;
+import kirok.querydsl.repository.support.ParallelRangeScanner;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * 조건 없는 회원 전체 스캔(200,000 명)의 처리량: 작업 스레드 1, 2, 4, 8 개로 id 구간을 나누어 읽을 때 초당 행 수.
+ * 소비자는 id 순서를 확인하는 것 외에 하는 일이 없으므로 DB 읽기와 행 변환 처리량만 잰다.
+ * <p>
+ * 실행: ./gradlew loadTest --tests '*ParallelScanBenchmark'
+ */
+@SpringBootTest(properties = "loadtest.seed.members=200000")
+@ActiveProfiles("loadtest")
+class ParallelScanBenchmark {
+
+    private static final int[] WORKERS = {1, 2, 4, 8};
+    private static final int ITERATIONS = 5;
+    private static final int FETCH_SIZE = 500;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Value("${loadtest.output-dir}")
+    String outputDir;
+
+    @Test
+    public void throughputByWorkers() throws Exception {
+        Tuple bounds = queryFactory.select(member.id.min(), member.id.max(), member.count())
+            .from(member).fetchOne();
+        long min = bounds.get(member.id.min());
+        long max = bounds.get(member.id.max());
+        long rows = bounds.get(member.count());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("members", rows);
+        for (int workers : WORKERS) {
+            ParallelRangeScanner scanner =
+                new ParallelRangeScanner(entityManagerFactory, workers, 2000, 1, 10_000);
+            try {
+                List<IdRange> ranges = IdRange.split(min, max, workers);
+                assertThat(scan(scanner, ranges)).isEqualTo(rows);
+                report.put("workers-" + workers, measure(scanner, ranges, rows));
+            } finally {
+                scanner.destroy();
+            }
+        }
+
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("parallel-scan-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(file.toFile(), report);
+        System.out.println("parallel scan benchmark = " + file.toAbsolutePath());
+    }
+
+    private long scan(ParallelRangeScanner scanner, List<IdRange> ranges) {
+        AtomicLong last = new AtomicLong();
+        return scanner.scan(member.id, ranges, FETCH_SIZE, (query, range) -> query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id,
+                    team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(range)
+                .orderBy(member.id.asc()),
+            row -> {
+                if (last.getAndSet(row.getMemberId()) >= row.getMemberId()) {
+                    throw new IllegalStateException("out of order: " + row.getMemberId());
+                }
+            });
+    }
+
+    /**
+     * 평균 소요 시간(ms)과 초당 행 수.
+     */
+    private Map<String, Object> measure(ParallelRangeScanner scanner, List<IdRange> ranges,
+        long rows) {
+        scan(scanner, ranges);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            scan(scanner, ranges);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ranges", ranges.size());
+        result.put("meanMillis", millis);
+        result.put("rowsPerSecond", rows * 1000.0 / millis);
+        return result;
+    }
+}
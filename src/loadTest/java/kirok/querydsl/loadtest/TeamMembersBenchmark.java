@@ -0,0 +1,133 @@
+package kirok.querydsl.loadtest;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.TeamMembersDto;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.repository.TeamQueryRepository;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 팀 4 개(팀당 12,500 명) 페이지 조회: 컬렉션 fetch join, team.members 지연 로딩(N+1), 팀 페이지 + 회원 IN 조회 비교.
+ * IN 조회는 /v1/teams 스트리밍 응답까지 함께 잰다.
+ * <p>
+ * 실행: ./gradlew loadTest --tests '*TeamMembersBenchmark'
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "loadtest.seed.teams=8")
+@ActiveProfiles("loadtest")
+class TeamMembersBenchmark {
+
+    private static final int PAGE_SIZE = 4;
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Value("${loadtest.output-dir}")
+    String outputDir;
+
+    @Test
+    public void teamsWithMembers() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        Supplier<Long> fetchJoin = () -> tx.execute(status -> {
+            List<Long> teamIds = queryFactory.select(team.id).from(team)
+                .orderBy(team.id.asc()).limit(PAGE_SIZE).fetch();
+            List<Team> teams = queryFactory.selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(teamIds))
+                .fetch();
+            long members = teams.stream().mapToLong(t -> t.getMembers().size()).sum();
+            em.clear();
+            return members;
+        });
+        Supplier<Long> lazy = () -> tx.execute(status -> {
+            List<Team> teams = queryFactory.selectFrom(team)
+                .orderBy(team.id.asc()).limit(PAGE_SIZE).fetch();
+            long members = teams.stream().mapToLong(t -> t.getMembers().size()).sum();
+            em.clear();
+            return members;
+        });
+        Supplier<Long> inQuery = () -> teamQueryRepository
+            .findTeamsWithMembers(PageRequest.of(0, PAGE_SIZE)).getContent().stream()
+            .mapToLong(TeamMembersDto::getMemberCount).sum();
+        Supplier<Long> endpoint = () -> (long) restTemplate
+            .getForObject("/v1/teams?page=0&size=" + PAGE_SIZE, byte[].class).length;
+
+        long expected = inQuery.get();
+        assertThat(expected).isGreaterThanOrEqualTo(PAGE_SIZE * 10_000L);
+        assertThat(fetchJoin.get()).isEqualTo(expected);
+        assertThat(lazy.get()).isEqualTo(expected);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("members", expected);
+        report.put("fetchJoin", measure(fetchJoin));
+        report.put("lazy", measure(lazy));
+        report.put("inQuery", measure(inQuery));
+        report.put("endpoint", measure(endpoint));
+
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("team-members-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(file.toFile(), report);
+        System.out.println("team members benchmark = " + file.toAbsolutePath());
+    }
+
+    /**
+     * 마이크로초 단위 p50, p99, 평균.
+     */
+    private Map<String, Object> measure(Supplier<?> query) {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            query.get();
+        }
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            histogram.recordValue((System.nanoTime() - start) / 1000);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("p50", histogram.getValueAtPercentile(50));
+        result.put("p99", histogram.getValueAtPercentile(99));
+        result.put("mean", histogram.getMean());
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package kirok.querydsl.loadtest;
+
+import static kirok.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.memory.UsernameIndex;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * username 부분 문자열 검색: LIKE '%x%' 전체 스캔과 n-gram 인덱스 후보 + id IN 조회 비교.
+ * <p>
+ * 실행: ./gradlew loadTest --tests '*UsernameSearchBenchmark'
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+class UsernameSearchBenchmark {
+
+    private static final String[] KEYWORDS = {"er12345", "9999", "ber777", "mber4242", "r314"};
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    @Value("${loadtest.output-dir}")
+    String outputDir;
+
+    @Test
+    public void likeVersusIndex() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        for (String keyword : KEYWORDS) {
+            MemberSearchDto condition = new MemberSearchDto();
+            condition.setUsernameContains(keyword);
+
+            Supplier<List<Long>> like = () -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.username.contains(keyword))
+                .orderBy(member.id.asc())
+                .fetch();
+            Supplier<List<Long>> index = () -> {
+                List<Long> candidates = usernameIndex.candidates(condition);
+                return queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(member.id.in(candidates))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            };
+
+            assertThat(usernameIndex.candidates(condition)).isNotNull();
+            assertThat(index.get()).isEqualTo(like.get());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("like", measure(like));
+            result.put("index", measure(index));
+            report.put(keyword, result);
+        }
+
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("username-search-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(file.toFile(), report);
+        System.out.println("username search benchmark = " + file.toAbsolutePath());
+    }
+
+    /**
+     * 마이크로초 단위 p50, p99, 평균.
+     */
+    private Map<String, Object> measure(Supplier<?> query) {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            query.get();
+        }
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            histogram.recordValue((System.nanoTime() - start) / 1000);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("p50", histogram.getValueAtPercentile(50));
+        result.put("p99", histogram.getValueAtPercentile(99));
+        result.put("mean", histogram.getMean());
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package kirok.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import javax.persistence.EntityManager;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -15,7 +16,7 @@ public class QuerydslApplication {
 
     @Bean
     JPAQueryFactory jpaQueryFactory(EntityManager em) {
-        return new JPAQueryFactory(em);
+        return new DeadlineJPAQueryFactory(em);
     }
 
 }
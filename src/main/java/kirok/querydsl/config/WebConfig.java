@@ -0,0 +1,39 @@
+package kirok.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import kirok.querydsl.converter.BinaryMemberPageConverter;
+import kirok.querydsl.converter.ColumnarJsonMemberPageConverter;
+import kirok.querydsl.datasource.ReadYourWritesInterceptor;
+import kirok.querydsl.deadline.DeadlineInterceptor;
+import kirok.querydsl.limit.ConcurrencyLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+    private final DeadlineInterceptor deadlineInterceptor;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor);
+        registry.addInterceptor(deadlineInterceptor);
+        registry.addInterceptor(new ReadYourWritesInterceptor());
+    }
+
+    /**
+     * 회원 페이지 전용 형식은 맨 앞에 둔다. 뒤에 두면 Jackson 변환기가 *+json 을 먼저 받아 간다.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new BinaryMemberPageConverter());
+        converters.add(0, new ColumnarJsonMemberPageConverter(objectMapper));
+    }
+}
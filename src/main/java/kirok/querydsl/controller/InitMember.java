@@ -2,6 +2,7 @@ package kirok.querydsl.controller;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import kirok.querydsl.datasource.ReadYourWrites;
 import kirok.querydsl.entity.Member;
 import kirok.querydsl.entity.Team;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +19,7 @@ public class InitMember {
 
     @PostConstruct
     public void init() {
-        initMemberService.init();
+        ReadYourWrites.isolated(initMemberService::init);
     }
 
     @Component
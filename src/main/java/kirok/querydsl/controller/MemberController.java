@@ -1,35 +1,235 @@
 package kirok.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import kirok.querydsl.converter.MemberPageMediaTypes;
+import kirok.querydsl.deadline.Deadline;
+import kirok.querydsl.deadline.QueryBudget;
+import kirok.querydsl.dto.AgeGroupCountDto;
+import kirok.querydsl.dto.MemberChangesDto;
+import kirok.querydsl.dto.MemberPageColumns;
 import kirok.querydsl.dto.MemberSearchDto;
 import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.limit.Bulkhead;
+import kirok.querydsl.limit.BulkheadType;
+import kirok.querydsl.repository.MemberChangeRepository;
+import kirok.querydsl.repository.MemberField;
 import kirok.querydsl.repository.MemberJpaRepository;
-import kirok.querydsl.repository.MemberRepository;
+import kirok.querydsl.repository.MemberQueryRepository;
+import kirok.querydsl.repository.MemberSearchCoalescer;
+import kirok.querydsl.repository.MemberTestRepository;
+import kirok.querydsl.version.MemberPageETags;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_BATCH_CONDITIONS = 100;
+    private static final int MAX_CHANGES = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
-    private final MemberRepository memberRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final MemberTestRepository memberTestRepository;
+    private final MemberChangeRepository memberChangeRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberPageETags memberPageETags;
+
+    @Value("${member.export.budget-ms:300000}")
+    private long exportBudgetMs;
 
+    @Bulkhead(BulkheadType.LIST)
+    @QueryBudget(3000)
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchDto condition) {
         return memberJpaRepository.search(condition);
     }
 
+    /**
+     * fields=memberId,username 처럼 고른 필드만 조회한다. teamName 이 없으면 team 을 join 하지 않는다.
+     */
+    @Bulkhead(BulkheadType.LIST)
+    @QueryBudget(3000)
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchDto condition,
+        @RequestParam String fields) {
+        return memberQueryRepository.searchFields(condition, fields(fields));
+    }
+
+    /**
+     * 조건 목록을 한 번에 조회한다. 결과는 조건 순서와 같다. username 만 다른 조건은 IN 쿼리 하나로 합쳐진다.
+     */
+    @Bulkhead(BulkheadType.LIST)
+    @QueryBudget(3000)
+    @PostMapping("/v1/members/batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(
+        @RequestBody List<MemberSearchDto> conditions) {
+        if (conditions.size() > MAX_BATCH_CONDITIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "at most " + MAX_BATCH_CONDITIONS + " conditions");
+        }
+        return memberQueryRepository.searchBatch(conditions);
+    }
+
+    /**
+     * If-None-Match 가 현재 ETag 와 같으면 조회하지 않고 304 를 돌려준다. v3 도 같다.
+     */
+    @Bulkhead(BulkheadType.PAGE)
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchDto condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchDto condition, Pageable pageable,
+        WebRequest request) {
+        if (memberPageETags.notModified(request, "v2", condition, pageable)) {
+            return null;
+        }
+        return memberSearchCoalescer.searchPageSimple(condition, pageable);
     }
 
+    @Bulkhead(BulkheadType.PAGE)
+    @QueryBudget(2000)
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchDto condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchDto condition, Pageable pageable,
+        WebRequest request) {
+        if (memberPageETags.notModified(request, "v3", condition, pageable)) {
+            return null;
+        }
+        return memberSearchCoalescer.searchPageComplex(condition, pageable);
+    }
+
+    @Bulkhead(BulkheadType.PAGE)
+    @QueryBudget(2000)
+    @GetMapping(value = "/v3/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV3(MemberSearchDto condition,
+        Pageable pageable, @RequestParam String fields, WebRequest request) {
+        Set<MemberField> selected = fields(fields);
+        if (memberPageETags.notModified(request, "v3" + selected, condition, pageable)) {
+            return null;
+        }
+        return memberQueryRepository.searchPageFields(condition, pageable, selected);
+    }
+
+    /**
+     * Accept 가 열 형식 JSON 이나 이진 형식이면 이쪽으로 온다. 형식은 {@link MemberPageMediaTypes} 참고.
+     */
+    @Bulkhead(BulkheadType.PAGE)
+    @QueryBudget(2000)
+    @GetMapping(value = "/v3/members", produces = {MemberPageMediaTypes.COLUMNAR_JSON_VALUE,
+        MemberPageMediaTypes.BINARY_VALUE})
+    public MemberPageColumns searchMemberColumnsV3(MemberSearchDto condition, Pageable pageable,
+        WebRequest request) {
+        String variant = "v3 " + request.getHeader(HttpHeaders.ACCEPT);
+        if (memberPageETags.notModified(request, variant, condition, pageable)) {
+            return null;
+        }
+        return memberQueryRepository.searchPageColumns(condition, pageable);
+    }
+
+    @Bulkhead(BulkheadType.PAGE)
+    @GetMapping("/v4/members")
+    public Page<MemberTeamDto> searchMemberV4(MemberSearchDto condition, Pageable pageable) {
+        return memberQueryRepository.searchView(condition, pageable);
+    }
+
+    /**
+     * since 이후 바뀐 회원, 팀과 삭제 기록. 처음에는 since=0 으로 받고, 이후에는 응답의 watermark 를 since 로, afterId 가
+     * 있으면 afterId 로 보낸다.
+     */
+    @Bulkhead(BulkheadType.PAGE)
+    @GetMapping("/v1/members/changes")
+    public MemberChangesDto memberChanges(@RequestParam(defaultValue = "0") long since,
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(defaultValue = "500") int size) {
+        if (since < 0 || size < 1 || size > MAX_CHANGES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "since >= 0 and 1 <= size <= " + MAX_CHANGES);
+        }
+        return memberChangeRepository.changesSince(since, afterId, size);
+    }
+
+    @Bulkhead(BulkheadType.LIST)
+    @GetMapping("/v1/members/age-groups")
+    public List<AgeGroupCountDto> countByAgeGroup(MemberSearchDto condition) {
+        return memberQueryRepository.countByAgeGroup(condition);
+    }
+
+    /**
+     * 조건에 맞는 회원 전체를 한 줄에 하나씩 JSON 으로 내보낸다(NDJSON). 조건이 없거나 나이 조건만 있으면 id 구간 병렬
+     * 스캔으로 읽는다.
+     * <p>
+     * 본문은 요청 스레드를 떠나 비동기로 쓰이므로 요청 예산 대신 member.export.budget-ms 를 마감으로 건다.
+     * spring.mvc.async.request-timeout 은 이보다 길게 둔다.
+     */
+    @Bulkhead(BulkheadType.EXPORT)
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchDto condition) {
+        Duration budget = Duration.ofMillis(exportBudgetMs);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(out -> {
+                Deadline.start(budget);
+                try {
+                    export(condition, out);
+                } finally {
+                    Deadline.clear();
+                }
+            });
+    }
+
+    private static Set<MemberField> fields(String fields) {
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void export(MemberSearchDto condition, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            try {
+                memberTestRepository.exportMembers(condition, row -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("memberId", row.getMemberId());
+                        json.writeStringField("username", row.getUsername());
+                        json.writeNumberField("age", row.getAge());
+                        if (row.getTeamId() == null) {
+                            json.writeNullField("teamId");
+                        } else {
+                            json.writeNumberField("teamId", row.getTeamId());
+                        }
+                        json.writeStringField("teamName", row.getTeamName());
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
     }
 }
@@ -0,0 +1,27 @@
+package kirok.querydsl.controller;
+
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.limit.Bulkhead;
+import kirok.querydsl.limit.BulkheadType;
+import kirok.querydsl.shard.ShardedMemberSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.shard.enabled", havingValue = "true")
+public class ShardedMemberController {
+
+    private final ShardedMemberSearch shardedMemberSearch;
+
+    @Bulkhead(BulkheadType.PAGE)
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchDto condition, Pageable pageable) {
+        return shardedMemberSearch.search(condition, pageable);
+    }
+}
@@ -0,0 +1,82 @@
+package kirok.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import kirok.querydsl.dto.TeamStatsDto;
+import kirok.querydsl.dto.TeamMembersDto;
+import kirok.querydsl.limit.Bulkhead;
+import kirok.querydsl.limit.BulkheadType;
+import kirok.querydsl.memory.TeamStatistics;
+import kirok.querydsl.repository.TeamQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+    private final TeamStatistics teamStatistics;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 팀 페이지와 소속 회원. 조회는 트랜잭션 안에서 끝내고, 응답은 JsonGenerator 로 한 회원씩 써서 회원 DTO 트리를 만들지 않는다.
+     */
+    @Bulkhead(BulkheadType.EXPORT)
+    @GetMapping("/v1/teams")
+    public ResponseEntity<StreamingResponseBody> teamsWithMembers(Pageable pageable) {
+        Page<TeamMembersDto> page = teamQueryRepository.findTeamsWithMembers(pageable);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> write(page, out));
+    }
+
+    @Bulkhead(BulkheadType.LIST)
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        if (teamStatistics.isAvailable()) {
+            return teamStatistics.statistics();
+        }
+        return teamStatistics.statisticsFromDatabase();
+    }
+
+    private void write(Page<TeamMembersDto> page, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("content");
+            for (TeamMembersDto team : page.getContent()) {
+                json.writeStartObject();
+                json.writeNumberField("teamId", team.getTeamId());
+                json.writeStringField("name", team.getName());
+                json.writeArrayFieldStart("members");
+                long[] memberIds = team.getMemberIds();
+                String[] usernames = team.getUsernames();
+                int[] ages = team.getAges();
+                for (int i = 0; i < team.getMemberCount(); i++) {
+                    json.writeStartObject();
+                    json.writeNumberField("memberId", memberIds[i]);
+                    json.writeStringField("username", usernames[i]);
+                    json.writeNumberField("age", ages[i]);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeNumberField("totalElements", page.getTotalElements());
+            json.writeNumberField("totalPages", page.getTotalPages());
+            json.writeNumberField("number", page.getNumber());
+            json.writeNumberField("size", page.getSize());
+            json.writeEndObject();
+        }
+    }
+}
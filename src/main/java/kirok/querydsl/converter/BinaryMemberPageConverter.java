@@ -0,0 +1,103 @@
+package kirok.querydsl.converter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import kirok.querydsl.dto.MemberPageColumns;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * 길이 접두 이진 형식. 모든 정수는 big-endian 이다.
+ * <pre>
+ * int  MAGIC ('MBP1')
+ * int  number, int size, long totalElements, int rows
+ * long memberId * rows
+ * int  age * rows
+ * byte teamId 존재 비트맵 * ceil(rows / 8)   (i 번째 행은 i / 8 바이트의 i % 8 비트)
+ * long teamId * rows                        (없으면 0)
+ * str  username * rows
+ * str  teamName * rows
+ * str  = int 바이트 길이(null 이면 -1) + UTF-8 바이트
+ * </pre>
+ * 쓰기만 한다.
+ */
+public class BinaryMemberPageConverter extends AbstractHttpMessageConverter<MemberPageColumns> {
+
+    public static final int MAGIC = 0x4D425031;
+
+    public BinaryMemberPageConverter() {
+        super(MemberPageMediaTypes.BINARY);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberPageColumns.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberPageColumns readInternal(Class<? extends MemberPageColumns> clazz,
+        HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberPageColumns page, HttpOutputMessage outputMessage)
+        throws IOException {
+        int rows = page.getRowCount();
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+
+        out.writeInt(MAGIC);
+        out.writeInt(page.getNumber());
+        out.writeInt(page.getSize());
+        out.writeLong(page.getTotalElements());
+        out.writeInt(rows);
+
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(page.getMemberIds()[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(page.getAges()[i]);
+        }
+
+        Long[] teamIds = page.getTeamIds();
+        byte[] present = new byte[(rows + 7) / 8];
+        for (int i = 0; i < rows; i++) {
+            if (teamIds[i] != null) {
+                present[i / 8] |= 1 << (i % 8);
+            }
+        }
+        out.write(present);
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(teamIds[i] == null ? 0 : teamIds[i]);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            writeString(out, page.getUsernames()[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(out, page.getTeamNames()[i]);
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package kirok.querydsl.converter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import kirok.querydsl.dto.MemberPageColumns;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * 필드마다 배열 하나인 JSON.
+ * <pre>
+ * {"memberId":[1,2],"username":["a","b"],"age":[10,20],"teamId":[1,null],"teamName":["t",null],
+ *  "page":{"number":0,"size":20,"totalElements":2,"totalPages":1}}
+ * </pre>
+ * 필드 이름은 한 번만 쓰고 Spring Data 의 pageable 메타데이터는 쓰지 않는다. 쓰기만 한다.
+ */
+public class ColumnarJsonMemberPageConverter
+    extends AbstractHttpMessageConverter<MemberPageColumns> {
+
+    private final ObjectMapper objectMapper;
+
+    public ColumnarJsonMemberPageConverter(ObjectMapper objectMapper) {
+        super(MemberPageMediaTypes.COLUMNAR_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberPageColumns.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberPageColumns readInternal(Class<? extends MemberPageColumns> clazz,
+        HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberPageColumns page, HttpOutputMessage outputMessage)
+        throws IOException {
+        int rows = page.getRowCount();
+        try (JsonGenerator json = objectMapper.getFactory()
+            .createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartObject();
+
+            json.writeFieldName("memberId");
+            json.writeArray(page.getMemberIds(), 0, rows);
+
+            json.writeArrayFieldStart("username");
+            for (int i = 0; i < rows; i++) {
+                json.writeString(page.getUsernames()[i]);
+            }
+            json.writeEndArray();
+
+            json.writeFieldName("age");
+            json.writeArray(page.getAges(), 0, rows);
+
+            json.writeArrayFieldStart("teamId");
+            for (int i = 0; i < rows; i++) {
+                Long teamId = page.getTeamIds()[i];
+                if (teamId == null) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(teamId);
+                }
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("teamName");
+            for (int i = 0; i < rows; i++) {
+                json.writeString(page.getTeamNames()[i]);
+            }
+            json.writeEndArray();
+
+            json.writeObjectFieldStart("page");
+            json.writeNumberField("number", page.getNumber());
+            json.writeNumberField("size", page.getSize());
+            json.writeNumberField("totalElements", page.getTotalElements());
+            json.writeNumberField("totalPages", page.getTotalPages());
+            json.writeEndObject();
+
+            json.writeEndObject();
+        }
+    }
+}
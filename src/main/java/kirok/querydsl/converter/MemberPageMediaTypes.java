@@ -0,0 +1,18 @@
+package kirok.querydsl.converter;
+
+import org.springframework.http.MediaType;
+
+/**
+ * {@link kirok.querydsl.dto.MemberPageColumns} 응답 형식. Accept 헤더로 고른다.
+ */
+public final class MemberPageMediaTypes {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.member-page.columnar+json";
+    public static final MediaType COLUMNAR_JSON = MediaType.valueOf(COLUMNAR_JSON_VALUE);
+
+    public static final String BINARY_VALUE = "application/vnd.member-page.binary";
+    public static final MediaType BINARY = MediaType.valueOf(BINARY_VALUE);
+
+    private MemberPageMediaTypes() {
+    }
+}
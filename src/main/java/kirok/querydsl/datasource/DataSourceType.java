@@ -0,0 +1,5 @@
+package kirok.querydsl.datasource;
+
+public enum DataSourceType {
+    PRIMARY, REPLICA
+}
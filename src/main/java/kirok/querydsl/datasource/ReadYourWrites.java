@@ -0,0 +1,64 @@
+package kirok.querydsl.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 요청 단위 read-your-writes. 이번 요청에서 primary 에 쓰기 트랜잭션을 연 뒤에는 읽기 전용 트랜잭션도 primary 로 보낸다.
+ * <p>
+ * 웹 요청은 {@link ReadYourWritesInterceptor} 가 요청이 끝날 때 비운다. 스케줄러, 비동기 작업, 기동 시 적재처럼 웹 요청
+ * 밖의 작업은 {@link #isolated(Runnable)} 나 {@link #onPrimary(Supplier)} 로 감싸서 작업이 끝나면 스레드의 상태를 되돌린다.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void markWritten() {
+        WRITTEN.set(Boolean.TRUE);
+    }
+
+    public static boolean hasWritten() {
+        return WRITTEN.get() != null;
+    }
+
+    public static void clear() {
+        WRITTEN.remove();
+    }
+
+    /**
+     * 작업 하나를 빈 상태에서 시작하고 끝나면 비운다. 풀 스레드에서 앞 작업의 쓰기 표시가 다음 작업으로 넘어가지 않게 한다.
+     */
+    public static void isolated(Runnable task) {
+        WRITTEN.remove();
+        try {
+            task.run();
+        } finally {
+            WRITTEN.remove();
+        }
+    }
+
+    /**
+     * 읽기 전용 트랜잭션도 primary 로 보낸다. 기동 시 적재나 쓰기 직후 다시 읽는 작업처럼 replica 지연을 허용할 수 없을 때 쓴다.
+     * 끝나면 호출 전 상태로 되돌린다.
+     */
+    public static <T> T onPrimary(Supplier<T> task) {
+        Boolean previous = WRITTEN.get();
+        WRITTEN.set(Boolean.TRUE);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                WRITTEN.remove();
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable task) {
+        onPrimary(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package kirok.querydsl.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * replica 지연 측정. lagQuery 는 replica 에서 지연을 초 단위 숫자 하나로 돌려주는 쿼리이다.
+ * <p>
+ * lagQuery 가 없으면 지연을 0 으로 본다. 측정에 실패하면 지연을 알 수 없으므로 무한대로 보고 읽기를 primary 로 보낸다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Duration UNKNOWN = Duration.ofSeconds(Long.MAX_VALUE);
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final ScheduledExecutorService scheduler;
+    private volatile Duration lag = Duration.ZERO;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration interval) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        if (!StringUtils.hasText(lagQuery)) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probe, 0, interval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    public Duration currentLag() {
+        return lag;
+    }
+
+    void update(Duration lag) {
+        this.lag = lag;
+    }
+
+    private void probe() {
+        try {
+            Number seconds = replica.queryForObject(lagQuery, Number.class);
+            update(seconds == null ? Duration.ZERO : Duration.ofMillis(
+                (long) (seconds.doubleValue() * 1000)));
+        } catch (RuntimeException e) {
+            log.warn("replica lag probe failed", e);
+            update(UNKNOWN);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package kirok.querydsl.datasource;
+
+import java.time.Duration;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * <p>
+ * 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 뒤에 정해지므로 LazyConnectionDataSourceProxy 로 감싸서 첫 쿼리 때 커넥션을
+ * 얻도록 해야 한다. 다음 경우에는 읽기 전용이어도 primary 로 보낸다.
+ * <ul>
+ *     <li>같은 요청에서 이미 쓰기 트랜잭션을 열었을 때 (read-your-writes)</li>
+ *     <li>replica 지연이 허용치를 넘었을 때</li>
+ * </ul>
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Duration lagTolerance;
+
+    public ReplicationRoutingDataSource(ReplicaLagMonitor lagMonitor, Duration lagTolerance) {
+        this.lagMonitor = lagMonitor;
+        this.lagTolerance = lagTolerance;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.markWritten();
+            }
+            return DataSourceType.PRIMARY;
+        }
+        if (ReadYourWrites.hasWritten()
+            || lagMonitor.currentLag().compareTo(lagTolerance) > 0) {
+            return DataSourceType.PRIMARY;
+        }
+        return DataSourceType.REPLICA;
+    }
+}
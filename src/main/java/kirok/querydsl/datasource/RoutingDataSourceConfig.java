@@ -0,0 +1,94 @@
+package kirok.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import kirok.querydsl.datasource.RoutingDataSourceProperties.Replica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+/**
+ * app.datasource.routing.enabled=true 일 때 primary/replica 두 풀을 만들고 {@link ReplicationRoutingDataSource} 로 묶는다.
+ * <p>
+ * JPA 가 쓰는 dataSource 는 LazyConnectionDataSourceProxy 이다. 트랜잭션이 시작될 때가 아니라 첫 쿼리 때 커넥션을 얻으므로
+ * 그 시점에는 readOnly 여부가 정해져 있다. ddl-auto 는 primary 에만 적용되고 replica 스키마는 복제로 맞춘다.
+ * <p>
+ * lag-query 가 없으면 지연을 잴 수 없어 lag-tolerance 가 동작하지 않으므로 기동 시 경고를 남긴다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    /**
+     * 풀 설정은 Boot 의 기본 dataSource 와 같이 spring.datasource.hikari.* 로 받는다.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * 풀 설정은 app.datasource.replica.hikari.* 로 받는다.
+     */
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(RoutingDataSourceProperties properties) {
+        Replica replica = properties.getReplica();
+        return DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(replica.getUrl())
+            .username(replica.getUsername())
+            .password(replica.getPassword())
+            .driverClassName(replica.getDriverClassName())
+            .build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        RoutingDataSourceProperties properties) {
+        Replica replica = properties.getReplica();
+        if (!StringUtils.hasText(replica.getLagQuery())) {
+            log.warn("app.datasource.replica.lag-query is not set; replica lag is not measured"
+                + " and lag-tolerance={} has no effect", replica.getLagTolerance());
+        }
+        return new ReplicaLagMonitor(replicaDataSource, replica.getLagQuery(),
+            replica.getLagProbeInterval());
+    }
+
+    @Bean
+    public ReplicationRoutingDataSource routingDataSource(
+        @Qualifier("primaryDataSource") DataSource primaryDataSource,
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        ReplicaLagMonitor replicaLagMonitor,
+        RoutingDataSourceProperties properties) {
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(
+            replicaLagMonitor, properties.getReplica().getLagTolerance());
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceType.PRIMARY, primaryDataSource);
+        targets.put(DataSourceType.REPLICA, replicaDataSource);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicationRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
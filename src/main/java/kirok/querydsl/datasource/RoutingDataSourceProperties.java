@@ -0,0 +1,46 @@
+package kirok.querydsl.datasource;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * app.datasource.* 설정. primary 는 spring.datasource 를 그대로 쓰고 여기에는 replica 접속 정보만 둔다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("app.datasource")
+public class RoutingDataSourceProperties {
+
+    private final Routing routing = new Routing();
+    private final Replica replica = new Replica();
+
+    @Getter
+    @Setter
+    public static class Routing {
+
+        private boolean enabled;
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        /**
+         * 이 값보다 지연된 replica 에는 읽기를 보내지 않는다.
+         */
+        private Duration lagTolerance = Duration.ofSeconds(1);
+
+        /**
+         * replica 에서 지연을 초 단위로 돌려주는 쿼리. 비어 있으면 지연을 재지 않고 lagTolerance 도 쓰이지 않는다.
+         */
+        private String lagQuery;
+        private Duration lagProbeInterval = Duration.ofSeconds(1);
+    }
+}
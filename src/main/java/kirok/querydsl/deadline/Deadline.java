@@ -0,0 +1,88 @@
+package kirok.querydsl.deadline;
+
+import java.time.Duration;
+import javax.persistence.Query;
+import org.hibernate.jpa.QueryHints;
+
+/**
+ * 요청 단위 조회 마감 시각.
+ * <p>
+ * 쿼리를 만들 때마다 남은 시간을 javax.persistence.query.timeout 으로 붙이므로, 본문 쿼리가 시간을 쓰면 뒤따르는 count 쿼리의
+ * 타임아웃은 그만큼 짧아진다. JDBC 타임아웃은 초 단위라 남은 시간을 초로 올림한다. 타임아웃이 지나면 드라이버가 문장을
+ * 취소(Statement.cancel)하고, 이미 마감이 지났으면 쿼리를 보내지 않고 {@link DeadlineExceededException} 을 던진다.
+ * <p>
+ * 웹 요청은 {@link DeadlineInterceptor} 가 시작하고 비운다. 마감이 없으면 아무것도 붙이지 않는다.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    public static void start(Duration budget) {
+        DEADLINE.set(System.nanoTime() + budget.toNanos());
+    }
+
+    public static boolean active() {
+        return DEADLINE.get() != null;
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * 다른 스레드에 넘길 마감 시각. 마감이 없으면 null 이다.
+     */
+    public static Long snapshot() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * {@link #snapshot()} 으로 받은 마감을 현재 스레드에 건다. 작업이 끝나면 {@link #clear()} 한다.
+     */
+    public static void restore(Long deadline) {
+        if (deadline == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadline);
+        }
+    }
+
+    /**
+     * 남은 시간. 마감이 없으면 null, 지났으면 0 이다.
+     */
+    public static Duration remaining() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return null;
+        }
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    /**
+     * 남은 시간을 초 단위로 올림한 JDBC 타임아웃. 마감이 없으면 0 이다.
+     *
+     * @throws DeadlineExceededException 마감이 이미 지났으면
+     */
+    public static int timeoutSeconds() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return 0;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException();
+        }
+        return (int) Math.max(1, (Duration.ofNanos(remaining).toMillis() + 999) / 1000);
+    }
+
+    public static <Q extends Query> Q apply(Q query) {
+        int seconds = timeoutSeconds();
+        if (seconds > 0) {
+            query.setHint(QueryHints.SPEC_HINT_TIMEOUT, seconds * 1000);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,11 @@
+package kirok.querydsl.deadline;
+
+/**
+ * 요청 예산을 다 써서 쿼리를 보내지 않았다.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException() {
+        super("request deadline exceeded");
+    }
+}
@@ -0,0 +1,20 @@
+package kirok.querydsl.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 예산을 넘긴 조회는 503 으로 돌려준다. 취소된 쿼리는 저장소 예외 변환을 거쳐 QueryTimeoutException 으로 온다.
+ */
+@RestControllerAdvice
+public class DeadlineExceptionHandler {
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler({DeadlineExceededException.class,
+        org.springframework.dao.QueryTimeoutException.class,
+        javax.persistence.QueryTimeoutException.class})
+    public void deadlineExceeded() {
+    }
+}
@@ -0,0 +1,91 @@
+package kirok.querydsl.deadline;
+
+import java.time.Duration;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * 요청마다 {@link Deadline} 을 시작한다.
+ * <p>
+ * 예산은 X-Request-Budget-Ms 헤더, {@link QueryBudget}, member.deadline.default-budget-ms 중 있는 값의 최소이며
+ * member.deadline.max-budget-ms 를 넘지 않는다. 0 이면 마감이 없다. 비동기 응답은 컨트롤러 스레드를 떠날 때 비운다.
+ */
+@Component
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    @Value("${member.deadline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${member.deadline.default-budget-ms:0}")
+    private long defaultBudgetMs;
+
+    @Value("${member.deadline.max-budget-ms:30000}")
+    private long maxBudgetMs;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+        Object handler) {
+        Deadline.clear();
+        if (!enabled) {
+            return true;
+        }
+
+        long budget = defaultBudgetMs;
+        if (handler instanceof HandlerMethod) {
+            QueryBudget queryBudget =
+                ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+            if (queryBudget != null) {
+                budget = min(budget, queryBudget.value());
+            }
+        }
+        budget = min(budget, header(request));
+        budget = min(budget, maxBudgetMs);
+        if (budget > 0) {
+            Deadline.start(Duration.ofMillis(budget));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request,
+        HttpServletResponse response, Object handler) {
+        Deadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+        Object handler, Exception ex) {
+        Deadline.clear();
+    }
+
+    private static long header(HttpServletRequest request) {
+        String value = request.getHeader(BUDGET_HEADER);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 0 은 값 없음.
+     */
+    private static long min(long a, long b) {
+        if (a <= 0) {
+            return b;
+        }
+        if (b <= 0) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,17 @@
+package kirok.querydsl.deadline;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔드포인트별 조회 예산(ms). 요청 헤더 {@link DeadlineInterceptor#BUDGET_HEADER}, member.deadline.default-budget-ms 와
+ * 함께 가장 짧은 값을 쓰므로 기본 예산보다 늘릴 수는 없다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    long value();
+}
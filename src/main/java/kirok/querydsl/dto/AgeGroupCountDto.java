@@ -0,0 +1,13 @@
+package kirok.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AgeGroupCountDto {
+
+    private int ageGroup;
+    private String label;
+    private long count;
+}
@@ -0,0 +1,20 @@
+package kirok.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import kirok.querydsl.entity.TombstoneType;
+import lombok.Data;
+
+@Data
+public class DeletedDto {
+
+    private long changeSeq;
+    private TombstoneType type;
+    private Long id;
+
+    @QueryProjection
+    public DeletedDto(long changeSeq, TombstoneType type, Long id) {
+        this.changeSeq = changeSeq;
+        this.type = type;
+        this.id = id;
+    }
+}
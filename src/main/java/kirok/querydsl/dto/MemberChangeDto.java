@@ -0,0 +1,26 @@
+package kirok.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class MemberChangeDto {
+
+    private long changeSeq;
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+
+    @QueryProjection
+    public MemberChangeDto(long changeSeq, Long memberId, String username, int age, Long teamId,
+        String teamName) {
+        this.changeSeq = changeSeq;
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,22 @@
+package kirok.querydsl.dto;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * since 이후 변경. 다음 요청은 watermark 를 since 로, afterId 를 afterId 로 보낸다. afterId 는 watermark 번 변경의 일부만
+ * 받았을 때(벌크 update 처럼 여러 행이 같은 번호를 가질 때) 마지막으로 받은 id 이고, 그 번호를 모두 받았으면 null 이다.
+ * hasMore 가 false 이면 지금까지의 변경을 모두 받은 것이다.
+ * <p>
+ * 팀 이름이 바뀌면 teams 에만 나오고 그 팀의 회원은 다시 나오지 않는다.
+ */
+@Data
+public class MemberChangesDto {
+
+    private final long watermark;
+    private final Long afterId;
+    private final boolean hasMore;
+    private final List<MemberChangeDto> members;
+    private final List<TeamChangeDto> teams;
+    private final List<DeletedDto> deleted;
+}
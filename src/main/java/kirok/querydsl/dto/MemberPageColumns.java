@@ -0,0 +1,53 @@
+package kirok.querydsl.dto;
+
+import lombok.Getter;
+
+/**
+ * 회원 페이지를 열 배열로 담는다. 조회 결과 행을 MemberTeamDto 로 만들지 않고 바로 채우며, 열 형식 JSON 과 이진 형식
+ * 응답(MemberPageMediaTypes)이 그대로 쓴다. 팀이 없는 회원의 teamId, teamName 은 null 이다.
+ * <p>
+ * 열 배열은 capacity 크기로 잡고 앞의 rowCount 칸만 쓴다. 행을 다 읽은 뒤에야 전체 건수를 아는 경우가 있어
+ * totalElements 는 나중에 정할 수 있다.
+ */
+@Getter
+public class MemberPageColumns {
+
+    private final int number;
+    private final int size;
+    private long totalElements;
+
+    private final long[] memberIds;
+    private final String[] usernames;
+    private final int[] ages;
+    private final Long[] teamIds;
+    private final String[] teamNames;
+    private int rowCount;
+
+    public MemberPageColumns(int number, int size, long totalElements, int capacity) {
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.memberIds = new long[capacity];
+        this.usernames = new String[capacity];
+        this.ages = new int[capacity];
+        this.teamIds = new Long[capacity];
+        this.teamNames = new String[capacity];
+    }
+
+    public void add(long memberId, String username, int age, Long teamId, String teamName) {
+        memberIds[rowCount] = memberId;
+        usernames[rowCount] = username;
+        ages[rowCount] = age;
+        teamIds[rowCount] = teamId;
+        teamNames[rowCount] = teamName;
+        rowCount++;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getTotalPages() {
+        return size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+    }
+}
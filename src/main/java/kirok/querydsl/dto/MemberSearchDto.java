@@ -6,8 +6,15 @@ import lombok.Data;
 public class MemberSearchDto {
 
     private String username;
+    private String usernameStartsWith;
+    private String usernameContains;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
 
+    /**
+     * AgeGroups 구간 번호. 나이 구간 인덱스(age_group)로 찾는다.
+     */
+    private Integer ageGroup;
+
 }
@@ -0,0 +1,19 @@
+package kirok.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamChangeDto {
+
+    private long changeSeq;
+    private Long teamId;
+    private String name;
+
+    @QueryProjection
+    public TeamChangeDto(long changeSeq, Long teamId, String name) {
+        this.changeSeq = changeSeq;
+        this.teamId = teamId;
+        this.name = name;
+    }
+}
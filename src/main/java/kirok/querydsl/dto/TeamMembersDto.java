@@ -0,0 +1,38 @@
+package kirok.querydsl.dto;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * 팀 하나와 소속 회원 목록. 회원은 행 객체 대신 열 배열로 담는다. 팀에 회원이 수만 명이어도 회원당 객체는 username 문자열
+ * 하나뿐이다.
+ */
+@Getter
+public class TeamMembersDto {
+
+    private final Long teamId;
+    private final String name;
+
+    private long[] memberIds = new long[8];
+    private String[] usernames = new String[8];
+    private int[] ages = new int[8];
+    private int memberCount;
+
+    public TeamMembersDto(Long teamId, String name) {
+        this.teamId = teamId;
+        this.name = name;
+    }
+
+    public void addMember(long memberId, String username, int age) {
+        if (memberCount == memberIds.length) {
+            int capacity = memberCount * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+        }
+        memberIds[memberCount] = memberId;
+        usernames[memberCount] = username;
+        ages[memberCount] = age;
+        memberCount++;
+    }
+}
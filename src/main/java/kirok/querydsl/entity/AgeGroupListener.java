@@ -0,0 +1,22 @@
+package kirok.querydsl.entity;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 저장 직전에 Member.ageGroup 을 채운다. Hibernate 가 스프링 빈으로 생성하므로 AgeGroups 를 주입받는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgeGroupListener {
+
+    private final AgeGroups ageGroups;
+
+    @PrePersist
+    @PreUpdate
+    public void assign(Member member) {
+        member.assignAgeGroup(ageGroups.groupOf(member.getAge()));
+    }
+}
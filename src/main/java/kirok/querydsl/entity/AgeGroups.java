@@ -0,0 +1,84 @@
+package kirok.querydsl.entity;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import java.util.Arrays;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * 나이 구간. member.age-group.boundaries 가 20,30,40,60 이면 구간은 0: ~19, 1: 20~29, 2: 30~39, 3: 40~59, 4: 60~ 이다.
+ * <p>
+ * 경계를 바꾸면 이미 저장된 Member.ageGroup 은 AgeGroupBackfill 이 다시 계산한다. 빈이 아닌 곳(벌크 update 절)에서는
+ * {@link #current()} 로 꺼내 쓴다.
+ */
+@Component
+public class AgeGroups {
+
+    private static volatile AgeGroups current;
+
+    private final int[] boundaries;
+
+    public AgeGroups(@Value("${member.age-group.boundaries:20,30,40,60}") int[] boundaries) {
+        for (int i = 1; i < boundaries.length; i++) {
+            Assert.isTrue(boundaries[i - 1] < boundaries[i],
+                "Age group boundaries must be strictly increasing: "
+                    + Arrays.toString(boundaries));
+        }
+        this.boundaries = boundaries.clone();
+    }
+
+    /**
+     * 스프링 빈으로 등록된 구간. 컨텍스트 밖이면 null 이다.
+     */
+    public static AgeGroups current() {
+        return current;
+    }
+
+    @PostConstruct
+    void register() {
+        current = this;
+    }
+
+    public int groupOf(int age) {
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid] <= age) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return boundaries.length + 1;
+    }
+
+    public String label(int group) {
+        String from = group == 0 ? "" : String.valueOf(boundaries[group - 1]);
+        String to = group == boundaries.length ? "" : String.valueOf(boundaries[group] - 1);
+        return from + "~" + to;
+    }
+
+    /**
+     * groupOf 와 같은 계산을 하는 SQL CASE 식. 벌크 update 에서 쓴다.
+     */
+    public NumberExpression<Integer> caseOf(NumberExpression<Integer> age) {
+        if (boundaries.length == 0) {
+            return Expressions.asNumber(0);
+        }
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases =
+            new CaseBuilder().when(age.lt(boundaries[0])).then(0);
+        for (int i = 1; i < boundaries.length; i++) {
+            cases = cases.when(age.lt(boundaries[i])).then(i);
+        }
+        return cases.otherwise(boundaries.length);
+    }
+}
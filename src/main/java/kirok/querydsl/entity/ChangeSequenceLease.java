@@ -0,0 +1,52 @@
+package kirok.querydsl.entity;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * changeSeq 를 발급하는 인스턴스 기록. 한 행짜리 테이블이며 {@link kirok.querydsl.version.ChangeSequenceInitializer} 가
+ * 시작할 때 차지하고 주기적으로 갱신한다.
+ */
+@Entity
+@Table(name = "change_sequence_lease")
+@Getter
+@ToString
+@NoArgsConstructor(access = PROTECTED)
+public class ChangeSequenceLease {
+
+    @Id
+    private Long id;
+
+    private String owner;
+
+    private long renewedAt;
+
+    public ChangeSequenceLease(Long id, String owner, long renewedAt) {
+        this.id = id;
+        this.owner = owner;
+        this.renewedAt = renewedAt;
+    }
+
+    /**
+     * 다른 인스턴스가 timeout 안에 갱신했으면 true.
+     */
+    public boolean heldByOther(String owner, long now, long timeoutMillis) {
+        return this.owner != null && !this.owner.equals(owner)
+            && now - renewedAt < timeoutMillis;
+    }
+
+    public void renew(String owner, long now) {
+        this.owner = owner;
+        this.renewedAt = now;
+    }
+
+    public void release() {
+        this.owner = null;
+    }
+}
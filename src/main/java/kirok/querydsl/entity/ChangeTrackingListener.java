@@ -0,0 +1,69 @@
+package kirok.querydsl.entity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+import kirok.querydsl.version.ChangeSequence;
+import kirok.querydsl.version.DataVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member, Team 변경 추적. 저장, 변경 직전에 changeSeq 를 새로 받고, 저장, 변경, 삭제 뒤에는 {@link DataVersion} 을 올린다.
+ * <p>
+ * 삭제는 {@link Tombstone} 으로 남기고 삭제된 엔티티의 changeSeq 도 Tombstone 번호로 바꿔 삭제 이벤트가 그 번호를 싣게 한다.
+ * 콜백 안에서는 EntityManager 를 쓰면 안 되므로 커밋 직전에 저장한다. 이 리스너는
+ * EntityManagerFactory 를 만드는 중에 생성되므로 EntityManager 는 쓸 때 꺼낸다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeTrackingListener {
+
+    private final ObjectProvider<EntityManager> em;
+
+    @PrePersist
+    @PreUpdate
+    public void assignChangeSeq(Object entity) {
+        long seq = ChangeSequence.next();
+        if (entity instanceof Member) {
+            ((Member) entity).assignChangeSeq(seq);
+        } else if (entity instanceof Team) {
+            ((Team) entity).assignChangeSeq(seq);
+        }
+    }
+
+    @PreRemove
+    public void recordDelete(Object entity) {
+        Tombstone tombstone;
+        if (entity instanceof Member) {
+            tombstone = new Tombstone(TombstoneType.MEMBER, ((Member) entity).getId());
+            ((Member) entity).assignChangeSeq(tombstone.getChangeSeq());
+        } else if (entity instanceof Team) {
+            tombstone = new Tombstone(TombstoneType.TEAM, ((Team) entity).getId());
+            ((Team) entity).assignChangeSeq(tombstone.getChangeSeq());
+        } else {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    em.getObject().persist(tombstone);
+                }
+            });
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        DataVersion.changed();
+    }
+}
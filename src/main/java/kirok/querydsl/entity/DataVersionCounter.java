@@ -0,0 +1,30 @@
+package kirok.querydsl.entity;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Member, Team 데이터 버전을 담는 한 행짜리 테이블. {@link kirok.querydsl.version.DataVersionStore} 가 읽고 올린다.
+ */
+@Entity
+@Table(name = "data_version")
+@Getter
+@ToString
+@NoArgsConstructor(access = PROTECTED)
+public class DataVersionCounter {
+
+    @Id
+    private Long id;
+
+    private long version;
+
+    public DataVersionCounter(Long id) {
+        this.id = id;
+    }
+}
@@ -5,20 +5,32 @@ import static lombok.AccessLevel.PROTECTED;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_member_age_group", columnList = "ageGroup"),
+    @Index(name = "idx_member_change_seq", columnList = "changeSeq")})
+@EntityListeners({AgeGroupListener.class, ChangeTrackingListener.class})
+@NamedEntityGraph(name = Member.GRAPH_TEAM, attributeNodes = @NamedAttributeNode("team"))
 @Getter
 @ToString(of = {"id", "username", "age"})
 @NoArgsConstructor(access = PROTECTED)
 public class Member {
 
+    public static final String GRAPH_TEAM = "Member.team";
+
     @Id
     @GeneratedValue
     @Column(name = "member_id")
@@ -27,6 +39,16 @@ public class Member {
     private String username;
     private int age;
 
+    /**
+     * {@link AgeGroups} 구간 번호. age 에서 계산되며 {@link AgeGroupListener} 가 채운다.
+     */
+    private Integer ageGroup;
+
+    /**
+     * 마지막 변경 번호. {@link ChangeTrackingListener} 와 벌크 update 가 채운다.
+     */
+    private Long changeSeq;
+
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -48,6 +70,14 @@ public class Member {
         }
     }
 
+    void assignAgeGroup(Integer ageGroup) {
+        this.ageGroup = ageGroup;
+    }
+
+    void assignChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     private void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
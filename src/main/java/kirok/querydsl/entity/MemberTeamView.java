@@ -0,0 +1,54 @@
+package kirok.querydsl.entity;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * member 와 team 을 미리 합쳐 둔 조회 전용 테이블. MemberTeamDto 조회를 join 없이 한 테이블에서 처리한다.
+ * <p>
+ * 원본은 Member, Team 이며 MemberTeamViewUpdater 가 커밋 후 이벤트를 모아 비동기로 반영한다.
+ */
+@Entity
+@Table(name = "member_team_view", indexes = {
+    @Index(name = "idx_member_team_view_username", columnList = "username"),
+    @Index(name = "idx_member_team_view_age", columnList = "age"),
+    @Index(name = "idx_member_team_view_age_group", columnList = "ageGroup"),
+    @Index(name = "idx_member_team_view_team_id", columnList = "teamId"),
+    @Index(name = "idx_member_team_view_team_name", columnList = "teamName")
+})
+@Getter
+@ToString
+@NoArgsConstructor(access = PROTECTED)
+public class MemberTeamView {
+
+    @Id
+    private Long memberId;
+
+    private String username;
+    private int age;
+    private Integer ageGroup;
+    private Long teamId;
+    private String teamName;
+
+    public MemberTeamView(Long memberId, String username, int age, Integer ageGroup,
+        Long teamId, String teamName) {
+        this.memberId = memberId;
+        update(username, age, ageGroup, teamId, teamName);
+    }
+
+    public void update(String username, int age, Integer ageGroup, Long teamId,
+        String teamName) {
+        this.username = username;
+        this.age = age;
+        this.ageGroup = ageGroup;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
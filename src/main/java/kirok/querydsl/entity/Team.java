@@ -6,14 +6,19 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_change_seq", columnList = "changeSeq"))
+@EntityListeners(ChangeTrackingListener.class)
 @Getter
 @ToString(of = {"id", "name"})
 @NoArgsConstructor(access = PROTECTED)
@@ -26,10 +31,23 @@ public class Team {
 
     private String name;
 
+    /**
+     * 마지막 변경 번호. {@link ChangeTrackingListener} 와 벌크 update 가 채운다.
+     */
+    private Long changeSeq;
+
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
+
+    void assignChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
 }
@@ -0,0 +1,43 @@
+package kirok.querydsl.entity;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import kirok.querydsl.version.ChangeSequence;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 삭제된 Member, Team 기록. 델타 동기화가 삭제를 알려 줄 수 있도록 changeSeq 와 함께 남긴다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_tombstone_change_seq", columnList = "changeSeq"))
+@Getter
+@ToString
+@NoArgsConstructor(access = PROTECTED)
+public class Tombstone {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private TombstoneType type;
+
+    private Long entityId;
+
+    private Long changeSeq;
+
+    public Tombstone(TombstoneType type, Long entityId) {
+        this.type = type;
+        this.entityId = entityId;
+        this.changeSeq = ChangeSequence.next();
+    }
+}
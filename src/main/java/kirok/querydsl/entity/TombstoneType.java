@@ -0,0 +1,5 @@
+package kirok.querydsl.entity;
+
+public enum TombstoneType {
+    MEMBER, TEAM
+}
@@ -0,0 +1,24 @@
+package kirok.querydsl.event;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Querydsl 벌크 update, delete 이벤트. 트랜잭션 커밋 후에 발행된다. 벌크 연산은 엔티티 이벤트를 만들지 않으므로 따로 보낸다.
+ * <p>
+ * UPDATE 는 바뀐 행 id 를 모르므로 ids 가 비어 있고, 바뀐 행은 모두 changeSeq 값을 가진다. DELETE 는 지운 id 를 모두 담고
+ * changeSeq 는 삭제 기록(Tombstone)들이 함께 받은 번호이다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BulkChangedEvent {
+
+    private final Class<?> entityType;
+    private final ChangeType type;
+    private final long changeSeq;
+    private final long rows;
+    private final List<Long> ids;
+}
@@ -0,0 +1,58 @@
+package kirok.querydsl.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 벌크 update, delete 절이 {@link BulkChangedEvent} 를 남기는 곳. 절은 스프링 빈이 아니므로 발행기는
+ * {@link EntityChangeEventPublisher} 가 시작할 때 넣는다.
+ * <p>
+ * 트랜잭션 안이면 커밋된 뒤에 발행하고 롤백되면 버린다. 발행기가 아직 없으면 아무것도 하지 않는다.
+ * <p>
+ * 커밋 후 발행은 {@link kirok.querydsl.version.DataVersion} 올리기보다 먼저 한다. 버전 콜백이 먼저 등록됐어도 순서로 뒤에
+ * 둔다. 버전이 먼저 올라가면 메모리 인덱스가 벌크 변경을 반영하기 전 데이터에 새 버전이 붙어 캐시될 수 있다.
+ */
+public final class BulkChanges {
+
+    /**
+     * 커밋 후 콜백 순서. 버전 올리기(Ordered.LOWEST_PRECEDENCE)보다 앞선다.
+     */
+    private static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    private static volatile ApplicationEventPublisher publisher;
+
+    private BulkChanges() {
+    }
+
+    static void setPublisher(ApplicationEventPublisher publisher) {
+        BulkChanges.publisher = publisher;
+    }
+
+    public static void record(BulkChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return ORDER;
+                }
+
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+    }
+
+    private static void publish(BulkChangedEvent event) {
+        ApplicationEventPublisher current = publisher;
+        if (current != null) {
+            current.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package kirok.querydsl.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 커밋된 Member, Team 변경을 구독자에게 나눠 주는 피드. 캐시나 인덱스가 DB 를 다시 읽지 않고 변경분만 반영하도록 한다.
+ * <p>
+ * {@link MemberChangedEvent}, {@link TeamChangedEvent}, {@link BulkChangedEvent} 를 받아 {@link ChangeRingBuffer} 에
+ * 넣고, 구독마다 전용 스레드가 읽는다. 이벤트는 커밋한 스레드에서 들어오므로 느린 구독자를 기다리지 않는다. 구독자가
+ * member.change-feed.buffer-size 만큼 뒤처지면 이벤트를 건너뛰고 {@link ChangeListener#onOverrun(long)} 을 받는다.
+ * <p>
+ * 커밋한 스레드에서 하기에는 무거운 작업을 구독자로 둔다. 지금은 벌크 변경이 들어오면 집계를 다시 맞추는
+ * {@link kirok.querydsl.memory.TeamStatistics} 가 구독한다.
+ * <p>
+ * 지표는 member.change.feed.published, 구독별 member.change.feed.lag(밀린 건수)와 member.change.feed.overrun 이다. 구독별 지표는 구독을
+ * 닫을 때 지운다.
+ */
+@Component
+public class ChangeFeed {
+
+    private final boolean enabled;
+    private final ChangeRingBuffer<Object> ring;
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeFeed(@Value("${member.change-feed.enabled:false}") boolean enabled,
+        @Value("${member.change-feed.buffer-size:8192}") int bufferSize,
+        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ring = new ChangeRingBuffer<>(bufferSize);
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder("member.change.feed.published")
+            .description("change events put on the feed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 구독 시점 이후의 이벤트를 받는다. 끊으려면 돌려받은 구독을 close 한다. close 하면 구독의 지표도 지운다.
+     */
+    public ChangeSubscription subscribe(String name, ChangeListener listener) {
+        List<Meter> meters = new ArrayList<>(2);
+        Counter overruns = Counter.builder("member.change.feed.overrun")
+            .description("times the subscriber fell a whole buffer behind")
+            .tag("subscriber", name)
+            .register(meterRegistry);
+        meters.add(overruns);
+        ChangeSubscription subscription = new ChangeSubscription(name, ring, listener, overruns,
+            closed -> {
+                subscriptions.remove(closed);
+                meters.forEach(meterRegistry::remove);
+            });
+        meters.add(Gauge.builder("member.change.feed.lag", subscription, ChangeSubscription::lag)
+            .description("events published but not yet handled by the subscriber")
+            .tag("subscriber", name)
+            .register(meterRegistry));
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        publish(event);
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        publish(event);
+    }
+
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        publish(event);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private void publish(Object event) {
+        if (!enabled) {
+            return;
+        }
+        ring.publish(event);
+        published.increment();
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.wakeUp();
+        }
+    }
+}
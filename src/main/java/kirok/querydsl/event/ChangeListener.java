@@ -0,0 +1,24 @@
+package kirok.querydsl.event;
+
+/**
+ * {@link ChangeFeed} 구독자. 구독마다 스레드 하나가 발행 순서대로 부른다. 필요한 메서드만 구현한다.
+ */
+public interface ChangeListener {
+
+    default void onMember(MemberChangedEvent event) {
+    }
+
+    default void onTeam(TeamChangedEvent event) {
+    }
+
+    default void onBulk(BulkChangedEvent event) {
+    }
+
+    /**
+     * 버퍼가 돌아서 읽지 못한 이벤트가 생겼다. 구독은 가장 최근 위치로 건너뛰므로 캐시나 인덱스는 원본에서 다시 만든다.
+     *
+     * @param missed 건너뛴 이벤트 수
+     */
+    default void onOverrun(long missed) {
+    }
+}
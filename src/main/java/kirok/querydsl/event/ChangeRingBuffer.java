@@ -0,0 +1,79 @@
+package kirok.querydsl.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 고정 크기 링 버퍼. 쓰는 쪽은 번호를 CAS 없이 getAndIncrement 로 받아 칸에 쓰고, 읽는 쪽은 각자 번호(커서)를 들고 읽는다.
+ * 락을 쓰지 않는다.
+ * <p>
+ * 쓰는 쪽은 기다리지 않는다. 버퍼가 차면 가장 오래된 칸을 덮어쓰고, 그 칸을 아직 읽지 못한 쪽은 {@link #isOverrun(long)}
+ * 으로 알게 된다. 칸마다 마지막으로 쓴 번호를 두고 항목을 읽은 뒤 번호를 다시 확인하므로, 읽는 도중 덮어써진 항목을 돌려주지 않는다.
+ * 동시에 capacity 개 넘게 쓰는 중인 경우는 고려하지 않는다.
+ */
+public class ChangeRingBuffer<E> {
+
+    private static final long WRITING = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> entries;
+    private final AtomicLongArray published;
+    private final AtomicLong next = new AtomicLong();
+
+    public ChangeRingBuffer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, WRITING);
+        }
+    }
+
+    /**
+     * @return 항목의 번호. 0 부터 시작한다
+     */
+    public long publish(E entry) {
+        long seq = next.getAndIncrement();
+        int index = (int) (seq & mask);
+        published.set(index, WRITING);
+        entries.set(index, entry);
+        published.set(index, seq);
+        return seq;
+    }
+
+    /**
+     * seq 번 항목. 아직 쓰이지 않았거나 이미 덮어써졌으면 null 이며, 어느 쪽인지는 {@link #isOverrun(long)} 으로 구분한다.
+     */
+    public E read(long seq) {
+        int index = (int) (seq & mask);
+        if (published.get(index) != seq) {
+            return null;
+        }
+        E entry = entries.get(index);
+        return published.get(index) == seq ? entry : null;
+    }
+
+    /**
+     * seq 번 칸에 더 뒤의 항목이 쓰였거나 쓰이는 중이면 true. seq 번 항목은 다시 읽을 수 없다.
+     */
+    public boolean isOverrun(long seq) {
+        return next.get() - seq > capacity;
+    }
+
+    /**
+     * 다음에 쓸 번호. 지금까지 받은 항목 수와 같다.
+     */
+    public long head() {
+        return next.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
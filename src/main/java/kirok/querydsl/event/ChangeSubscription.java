@@ -0,0 +1,108 @@
+package kirok.querydsl.event;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import kirok.querydsl.datasource.ReadYourWrites;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ChangeFeed} 구독 하나. 전용 데몬 스레드가 커서부터 순서대로 읽어 {@link ChangeListener} 를 부르고, 읽을 것이 없으면
+ * 새 이벤트가 들어올 때까지 잠든다.
+ * <p>
+ * 리스너가 던진 예외는 기록만 하고 다음 이벤트로 넘어간다. 이벤트 하나를 처리할 때마다 read-your-writes 표시를 비운다.
+ */
+@Slf4j
+public class ChangeSubscription implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String name;
+    private final ChangeRingBuffer<Object> ring;
+    private final ChangeListener listener;
+    private final Counter overruns;
+    private final Consumer<ChangeSubscription> onClose;
+    private final Thread thread;
+    private volatile long cursor;
+    private volatile boolean running = true;
+
+    ChangeSubscription(String name, ChangeRingBuffer<Object> ring, ChangeListener listener,
+        Counter overruns, Consumer<ChangeSubscription> onClose) {
+        this.name = name;
+        this.ring = ring;
+        this.listener = listener;
+        this.overruns = overruns;
+        this.onClose = onClose;
+        this.cursor = ring.head();
+        this.thread = new Thread(this::run, "change-feed-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * 발행되었지만 이 구독이 아직 처리하지 않은 이벤트 수.
+     */
+    public long lag() {
+        return Math.max(0, ring.head() - cursor);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        onClose.accept(this);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (running) {
+            long seq = cursor;
+            Object event = ring.read(seq);
+            if (event != null) {
+                dispatch(event);
+                cursor = seq + 1;
+            } else if (ring.isOverrun(seq)) {
+                long head = ring.head();
+                cursor = head;
+                overruns.increment();
+                log.warn("change feed subscriber {} overrun, skipped {} events", name, head - seq);
+                try {
+                    listener.onOverrun(head - seq);
+                } catch (RuntimeException e) {
+                    log.error("change feed subscriber {} failed on overrun", name, e);
+                } finally {
+                    ReadYourWrites.clear();
+                }
+            } else {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void dispatch(Object event) {
+        try {
+            if (event instanceof MemberChangedEvent) {
+                listener.onMember((MemberChangedEvent) event);
+            } else if (event instanceof TeamChangedEvent) {
+                listener.onTeam((TeamChangedEvent) event);
+            } else if (event instanceof BulkChangedEvent) {
+                listener.onBulk((BulkChangedEvent) event);
+            }
+        } catch (RuntimeException e) {
+            log.error("change feed subscriber {} failed on {}", name, event, e);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package kirok.querydsl.event;
+
+public enum ChangeType {
+    INSERT, UPDATE, DELETE
+}
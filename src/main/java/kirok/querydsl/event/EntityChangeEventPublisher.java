@@ -0,0 +1,140 @@
+package kirok.querydsl.event;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate post-commit 리스너로 Member, Team 변경을 받아 스프링 이벤트로 발행한다.
+ * <p>
+ * 커밋된 변경만 발행되므로 구독하는 쪽은 롤백을 신경 쓰지 않아도 된다. JPQL 벌크 연산은 엔티티 이벤트를 만들지 않으며, Querydsl
+ * 벌크 update, delete 는 {@link BulkChanges} 를 거쳐 {@link BulkChangedEvent} 로 발행된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEventPublisher implements PostCommitInsertEventListener,
+    PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ApplicationEventPublisher publisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        BulkChanges.setPublisher(publisher);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            publisher.publishEvent(new MemberChangedEvent(ChangeType.INSERT, null,
+                stateOf(member), changeSeq(member)));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            publisher.publishEvent(
+                new TeamChangedEvent(ChangeType.INSERT, team.getId(), team.getName(), null));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        Object[] oldState = event.getOldState();
+        EntityPersister persister = event.getPersister();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            MemberState before = oldState == null ? null : new MemberState(
+                member.getId(),
+                (String) oldState[indexOf(persister, "username")],
+                (Integer) oldState[indexOf(persister, "age")],
+                teamId(oldState[indexOf(persister, "team")]));
+            publisher.publishEvent(new MemberChangedEvent(ChangeType.UPDATE, before,
+                stateOf(member), changeSeq(member)));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            String oldName = oldState == null ? null : (String) oldState[indexOf(persister, "name")];
+            publisher.publishEvent(
+                new TeamChangedEvent(ChangeType.UPDATE, team.getId(), team.getName(), oldName));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            publisher.publishEvent(new MemberChangedEvent(ChangeType.DELETE, stateOf(member),
+                null, changeSeq(member)));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            publisher.publishEvent(
+                new TeamChangedEvent(ChangeType.DELETE, team.getId(), team.getName(), team.getName()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    private static MemberState stateOf(Member member) {
+        return new MemberState(member.getId(), member.getUsername(), member.getAge(),
+            teamId(member.getTeam()));
+    }
+
+    private static long changeSeq(Member member) {
+        return member.getChangeSeq() == null ? 0 : member.getChangeSeq();
+    }
+
+    /**
+     * 프록시를 초기화하지 않고 팀 id 를 꺼낸다.
+     */
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int indexOf(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+}
@@ -0,0 +1,30 @@
+package kirok.querydsl.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Member 변경 이벤트. 트랜잭션 커밋 후에 발행된다.
+ * <p>
+ * INSERT 는 before 가, DELETE 는 after 가 null 이다. UPDATE 에서 이전 값을 알 수 없으면 before 가 null 이다. changeSeq 는
+ * 이 변경이 받은 번호이고 DELETE 는 Tombstone 의 번호이다. 모르면 0 이다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberChangedEvent {
+
+    private final ChangeType type;
+    private final MemberState before;
+    private final MemberState after;
+    private final long changeSeq;
+
+    public MemberChangedEvent(ChangeType type, MemberState before, MemberState after) {
+        this(type, before, after, 0);
+    }
+
+    public Long getMemberId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,19 @@
+package kirok.querydsl.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 커밋 시점의 Member 값. 엔티티 대신 넘겨서 리스너가 지연 로딩이나 영속성 컨텍스트에 묶이지 않도록 한다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class MemberState {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+}
@@ -0,0 +1,19 @@
+package kirok.querydsl.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Team 변경 이벤트. 트랜잭션 커밋 후에 발행된다. DELETE 에서 name 은 삭제 직전 이름이다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class TeamChangedEvent {
+
+    private final ChangeType type;
+    private final Long teamId;
+    private final String name;
+    private final String oldName;
+}
@@ -0,0 +1,65 @@
+package kirok.querydsl.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD 동시 실행 한도.
+ * <p>
+ * 응답이 targetLatency 보다 느리거나 실패하면 한도를 backoffRatio 배로 줄이고, 빠르게 끝났고 한도의 절반 이상을 쓰고 있었으면
+ * 1 늘린다. 한도는 [minLimit, maxLimit] 안에 있다. 한도에 찬 상태에서는 기다리지 않고 바로 거절한다.
+ */
+public class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos,
+        double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * tryAcquire 가 true 였던 호출마다 한 번 부른다.
+     *
+     * @param dropped 실패나 타임아웃처럼 과부하로 볼 결과이면 true
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int used = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || latencyNanos > targetLatencyNanos) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (used * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,19 @@
+package kirok.querydsl.limit;
+
+/**
+ * 동시 실행 한도를 따로 두는 트래픽 종류. 한 종류가 몰려도 다른 종류의 한도는 줄지 않는다.
+ */
+public enum BulkheadType {
+    /**
+     * 페이지 없는 목록, 집계.
+     */
+    LIST,
+    /**
+     * 페이지 조회.
+     */
+    PAGE,
+    /**
+     * 대량 스트리밍.
+     */
+    EXPORT
+}
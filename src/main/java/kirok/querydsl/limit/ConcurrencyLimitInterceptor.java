@@ -0,0 +1,101 @@
+package kirok.querydsl.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * {@link Bulkhead} 가 붙은 핸들러에 종류별 {@link AimdLimiter} 를 건다.
+ * <p>
+ * 한도가 차 있으면 컨트롤러와 저장소를 부르지 않고 바로 503 과 Retry-After 를 돌려준다. 커넥션 풀 앞에서 줄을 세우지 않기
+ * 위해서이다. 지연은 핸들러 시작부터 응답 완료까지이며 비동기(스트리밍) 응답은 스트리밍이 끝날 때까지 한도를 차지한다.
+ * <p>
+ * 지표: member.limiter.limit, member.limiter.inflight 게이지와 member.limiter.rejected 카운터(tag bulkhead).
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(LimiterProperties.class)
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED_AT = ConcurrencyLimitInterceptor.class.getName() + ".startedAt";
+    private static final String BULKHEAD = ConcurrencyLimitInterceptor.class.getName() + ".bulkhead";
+
+    private final boolean enabled;
+    private final Map<BulkheadType, AimdLimiter> limiters = new EnumMap<>(BulkheadType.class);
+    private final Map<BulkheadType, Counter> rejected = new EnumMap<>(BulkheadType.class);
+
+    public ConcurrencyLimitInterceptor(LimiterProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        for (BulkheadType type : BulkheadType.values()) {
+            LimiterProperties.Settings settings = properties.settings(type);
+            AimdLimiter limiter = new AimdLimiter(settings.getInitialLimit(),
+                settings.getMinLimit(), settings.getMaxLimit(),
+                settings.getTargetLatency().toNanos(), settings.getBackoffRatio());
+            limiters.put(type, limiter);
+
+            String tag = type.name().toLowerCase();
+            Gauge.builder("member.limiter.limit", limiter, AimdLimiter::getLimit)
+                .tag("bulkhead", tag)
+                .register(meterRegistry);
+            Gauge.builder("member.limiter.inflight", limiter, AimdLimiter::getInFlight)
+                .tag("bulkhead", tag)
+                .register(meterRegistry);
+            rejected.put(type, meterRegistry.counter("member.limiter.rejected", "bulkhead", tag));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+        Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        if (request.getAttribute(BULKHEAD) != null) {
+            // 비동기 응답의 재디스패치. 처음 디스패치에서 이미 자리를 잡았다.
+            return true;
+        }
+        Bulkhead bulkhead = ((HandlerMethod) handler).getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            return true;
+        }
+
+        BulkheadType type = bulkhead.value();
+        if (!limiters.get(type).tryAcquire()) {
+            rejected.get(type).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+        request.setAttribute(BULKHEAD, type);
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+        Object handler, Exception ex) {
+        BulkheadType type = (BulkheadType) request.getAttribute(BULKHEAD);
+        if (type == null) {
+            return;
+        }
+        request.removeAttribute(BULKHEAD);
+        long latency = System.nanoTime() - (Long) request.getAttribute(STARTED_AT);
+        boolean dropped = ex != null || response.getStatus() >= 500;
+        limiters.get(type).release(latency, dropped);
+    }
+
+    public AimdLimiter limiter(BulkheadType type) {
+        return limiters.get(type);
+    }
+}
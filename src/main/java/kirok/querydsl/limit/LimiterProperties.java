@@ -0,0 +1,35 @@
+package kirok.querydsl.limit;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * member.limiter.* 설정. 종류별 설정이 없으면 기본값을 쓴다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("member.limiter")
+public class LimiterProperties {
+
+    private boolean enabled;
+    private Map<BulkheadType, Settings> bulkheads = new EnumMap<>(BulkheadType.class);
+
+    public Settings settings(BulkheadType type) {
+        return bulkheads.getOrDefault(type, new Settings());
+    }
+
+    @Getter
+    @Setter
+    public static class Settings {
+
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 50;
+        private Duration targetLatency = Duration.ofMillis(200);
+        private double backoffRatio = 0.9;
+    }
+}
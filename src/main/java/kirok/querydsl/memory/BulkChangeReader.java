@@ -0,0 +1,69 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.MemberState;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 벌크 update 로 바뀐 행을 다시 읽는다. 벌크 update 는 바뀐 행 모두에 같은 changeSeq 를 주므로({@link BulkChangedEvent}) 그
+ * 번호로 찾는다. 그 뒤에 다시 바뀐 행은 번호가 달라 빠지고, 그 변경의 이벤트가 따로 온다.
+ * <p>
+ * 커밋 후 이벤트 안에서 부르므로 새 트랜잭션을 열고, 방금 커밋된 변경을 봐야 하므로 primary 에서 읽는다.
+ */
+@Component
+public class BulkChangeReader {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate tx;
+
+    public BulkChangeReader(JPAQueryFactory queryFactory,
+        PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<MemberState> members(long changeSeq) {
+        return ReadYourWrites.onPrimary(() -> tx.execute(status -> {
+            List<MemberState> members = new ArrayList<>();
+            for (Tuple row : queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(member.changeSeq.eq(changeSeq))
+                .fetch()) {
+                members.add(new MemberState(row.get(member.id), row.get(member.username),
+                    row.get(member.age), row.get(member.team.id)));
+            }
+            return members;
+        }));
+    }
+
+    /**
+     * 바뀐 팀의 id 와 이름.
+     */
+    public Map<Long, String> teams(long changeSeq) {
+        return ReadYourWrites.onPrimary(() -> tx.execute(status -> {
+            Map<Long, String> teams = new LinkedHashMap<>();
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team)
+                .where(team.changeSeq.eq(changeSeq))
+                .fetch()) {
+                teams.put(row.get(team.id), row.get(team.name));
+            }
+            return teams;
+        }));
+    }
+}
@@ -0,0 +1,44 @@
+package kirok.querydsl.memory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 벌크 변경 행을 잠금 밖에서 다시 읽는 동안 행 단위 이벤트로 바뀐 id.
+ * <p>
+ * 읽은 뒤 잠금을 잡기 전에 같은 행의 이벤트가 먼저 반영될 수 있다. 그 이벤트가 읽은 값보다 새 값이므로 읽은 값을 반영할 때
+ * {@link #changedSince} 인 id 는 건너뛴다. 잠금 안에서 읽던 때 이벤트가 벌크 반영 뒤에 적용되던 것과 결과가 같다.
+ * <p>
+ * 동기화는 하지 않는다. 인덱스의 쓰기 잠금 안에서만 부른다.
+ */
+class ChangedDuringRead {
+
+    private final Map<Long, Long> recordedAt = new HashMap<>();
+    private long events;
+    private int reads;
+
+    /**
+     * @return {@link #changedSince} 에 넘길 시작점
+     */
+    long begin() {
+        reads++;
+        return events;
+    }
+
+    void record(long id) {
+        if (reads > 0) {
+            recordedAt.put(id, ++events);
+        }
+    }
+
+    boolean changedSince(long id, long since) {
+        Long at = recordedAt.get(id);
+        return at != null && at > since;
+    }
+
+    void end() {
+        if (--reads == 0) {
+            recordedAt.clear();
+        }
+    }
+}
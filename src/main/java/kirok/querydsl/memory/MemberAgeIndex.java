@@ -0,0 +1,278 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Member.age 보조 인덱스.
+ * <p>
+ * (age, member_id) 순으로 정렬한 int[], long[] 두 배열이다. 나이 범위의 건수는 이진 탐색 두 번으로 구하고, 범위 안의 id 는
+ * 나이 순서 그대로 잘라서 돌려준다. 변경은 커밋 후 {@link MemberChangedEvent} 로 한 건씩 반영하며, 삽입과 삭제는 배열
+ * 복사(memmove) 한 번이다. Querydsl 벌크 변경은 {@link BulkChangedEvent} 로 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberAgeIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_AGE = Integer.MIN_VALUE;
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final BulkChangeReader bulkChanges;
+
+    @Value("${member.age-index.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean loaded;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangedDuringRead changedDuringRead = new ChangedDuringRead();
+    private final LongIntHashMap ageById = new LongIntHashMap(INITIAL_CAPACITY, NO_AGE);
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            ReadYourWrites.onPrimary(() -> tx.executeWithoutResult(status -> {
+                List<Tuple> rows = queryFactory
+                    .select(member.age, member.id)
+                    .from(member)
+                    .orderBy(member.age.asc(), member.id.asc())
+                    .fetch();
+                ageById.clear();
+                size = 0;
+                ensureCapacity(rows.size());
+                for (Tuple row : rows) {
+                    int age = row.get(member.age);
+                    long id = row.get(member.id);
+                    ages[size] = age;
+                    ids[size] = id;
+                    size++;
+                    ageById.put(id, age);
+                }
+            }));
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringRead.record(event.getMemberId());
+            apply(event.getMemberId(),
+                event.getType() == ChangeType.DELETE ? null : event.getAfter());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 벌크 delete 는 지운 id 를 빼고, 벌크 update 는 바뀐 행을 잠금 밖에서 다시 읽은 뒤 잠금을 잡고 반영한다. 팀 벌크 변경은
+     * 나이와 상관없다.
+     */
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (!enabled || event.getEntityType() != Member.class) {
+            return;
+        }
+        if (event.getType() == ChangeType.DELETE) {
+            lock.writeLock().lock();
+            try {
+                event.getIds().forEach(id -> apply(id, null));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        long since;
+        lock.writeLock().lock();
+        try {
+            since = changedDuringRead.begin();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<MemberState> rows = null;
+        try {
+            rows = bulkChanges.members(event.getChangeSeq());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rows != null) {
+                    for (MemberState state : rows) {
+                        if (!changedDuringRead.changedSince(state.getId(), since)) {
+                            apply(state.getId(), state);
+                        }
+                    }
+                }
+            } finally {
+                changedDuringRead.end();
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(long id, MemberState after) {
+        int oldAge = ageById.get(id);
+        if (oldAge != NO_AGE) {
+            removeAt(position(oldAge, id));
+            ageById.remove(id);
+        }
+        if (after != null) {
+            insert(after.getAge(), id);
+            ageById.put(id, after.getAge());
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && loaded && SnapshotReads.allowed();
+    }
+
+    /**
+     * ageGoe <= age <= ageLoe 인 회원 수. null 은 열린 범위다.
+     */
+    public long count(Integer ageGoe, Integer ageLoe) {
+        lock.readLock().lock();
+        try {
+            int from = lowerBound(ageGoe);
+            int to = upperBound(ageLoe);
+            return Math.max(0, to - from);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 범위 안의 id 를 나이 순서로 offset 부터 limit 개 돌려준다. 같은 나이는 descending 이어도 id 오름차순이다. DB 경로의
+     * 정렬({@link kirok.querydsl.repository.MemberSortOrders})이 항상 member_id 오름차순을 마지막에 붙이기 때문이다.
+     */
+    public long[] ids(Integer ageGoe, Integer ageLoe, long offset, int limit, boolean descending) {
+        lock.readLock().lock();
+        try {
+            int from = lowerBound(ageGoe);
+            int to = upperBound(ageLoe);
+            int total = Math.max(0, to - from);
+            if (offset >= total) {
+                return new long[0];
+            }
+            int length = (int) Math.min(limit, total - offset);
+            if (!descending) {
+                int start = from + (int) offset;
+                return Arrays.copyOfRange(ids, start, start + length);
+            }
+            // 나이 블록을 위에서부터 내려가며 블록 안은 앞에서부터 복사한다. from 은 블록 경계라 블록이 범위를 넘지 않는다.
+            long[] result = new long[length];
+            long skip = offset;
+            int count = 0;
+            int end = to;
+            while (count < length) {
+                int start = position(ages[end - 1], Long.MIN_VALUE);
+                int block = end - start;
+                if (skip >= block) {
+                    skip -= block;
+                } else {
+                    int copied = Math.min(block - (int) skip, length - count);
+                    System.arraycopy(ids, start + (int) skip, result, count, copied);
+                    count += copied;
+                    skip = 0;
+                }
+                end = start;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int lowerBound(Integer ageGoe) {
+        if (ageGoe == null) {
+            return 0;
+        }
+        return position(ageGoe, Long.MIN_VALUE);
+    }
+
+    private int upperBound(Integer ageLoe) {
+        if (ageLoe == null || ageLoe == Integer.MAX_VALUE) {
+            return size;
+        }
+        return position(ageLoe + 1, Long.MIN_VALUE);
+    }
+
+    /**
+     * (age, id) 보다 작지 않은 첫 위치.
+     */
+    private int position(int age, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ages[mid] < age || (ages[mid] == age && ids[mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insert(int age, long id) {
+        ensureCapacity(size + 1);
+        int at = position(age, id);
+        System.arraycopy(ages, at, ages, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ages[at] = age;
+        ids[at] = id;
+        size++;
+    }
+
+    private void removeAt(int at) {
+        System.arraycopy(ages, at + 1, ages, at, size - at - 1);
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        size--;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ages.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ages.length * 2);
+        ages = Arrays.copyOf(ages, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+    }
+}
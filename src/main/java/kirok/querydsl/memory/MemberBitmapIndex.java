@@ -0,0 +1,321 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import kirok.querydsl.repository.MemberSearchPredicate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 팀별, 나이별 회원 비트맵 인덱스.
+ * <p>
+ * 회원 서수는 member_id 를 int 로 쓴 값이다. 팀마다, 나이 값마다 {@link RoaringBitmap} 하나를 두고 teamName, ageGoe, ageLoe
+ * 조건은 비트맵 OR/AND 로 계산한다. 건수는 결과 비트맵의 cardinality 이고, 페이지는 결과에서 id 순으로 잘라 온다. username
+ * 계열 조건은 비트맵이 없으므로 지원하지 않는다.
+ * <p>
+ * 커밋 후 {@link MemberChangedEvent}, {@link TeamChangedEvent}, {@link BulkChangedEvent} 로 갱신된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberBitmapIndex {
+
+    private static final int MISSING = -1;
+    private static final int NO_TEAM = -2;
+    private static final int NO_AGE = Integer.MIN_VALUE;
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final BulkChangeReader bulkChanges;
+
+    @Value("${member.bitmap-index.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean loaded;
+    private volatile boolean overflow;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangedDuringRead membersChangedDuringRead = new ChangedDuringRead();
+    private final ChangedDuringRead teamsChangedDuringRead = new ChangedDuringRead();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final NavigableMap<Integer, RoaringBitmap> byAge = new TreeMap<>();
+    private final LongIntHashMap teamSlotById = new LongIntHashMap(16, MISSING);
+    private final List<RoaringBitmap> byTeamSlot = new ArrayList<>();
+    private final List<String> teamNameBySlot = new ArrayList<>();
+    private final LongIntHashMap ageByMember = new LongIntHashMap(1024, NO_AGE);
+    private final LongIntHashMap teamSlotByMember = new LongIntHashMap(1024, MISSING);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            ReadYourWrites.onPrimary(() -> tx.executeWithoutResult(status -> {
+                for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                    teamNameBySlot.set(slotOf(row.get(team.id)), row.get(team.name));
+                }
+                for (Tuple row : queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .fetch()) {
+                    remove(row.get(member.id));
+                    upsert(new MemberState(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(member.team.id)));
+                }
+            }));
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            membersChangedDuringRead.record(event.getMemberId());
+            remove(event.getMemberId());
+            if (event.getType() != ChangeType.DELETE) {
+                upsert(event.getAfter());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            teamsChangedDuringRead.record(event.getTeamId());
+            String name = event.getType() == ChangeType.DELETE ? null : event.getName();
+            teamNameBySlot.set(slotOf(event.getTeamId()), name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 회원 벌크 delete 는 지운 id 를 빼고, 벌크 update 는 바뀐 회원이나 팀을 잠금 밖에서 다시 읽은 뒤 잠금을 잡고 반영한다. 팀
+     * 벌크 delete 는 회원이 참조하지 않는 팀만 지울 수 있으므로 이름만 지운다.
+     */
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (!enabled
+            || (event.getEntityType() != Member.class && event.getEntityType() != Team.class)) {
+            return;
+        }
+        if (event.getType() == ChangeType.DELETE) {
+            lock.writeLock().lock();
+            try {
+                if (event.getEntityType() == Member.class) {
+                    event.getIds().forEach(this::remove);
+                } else {
+                    event.getIds().forEach(id -> teamNameBySlot.set(slotOf(id), null));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        boolean members = event.getEntityType() == Member.class;
+        ChangedDuringRead changed = members ? membersChangedDuringRead : teamsChangedDuringRead;
+        long since;
+        lock.writeLock().lock();
+        try {
+            since = changed.begin();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<MemberState> memberRows = null;
+        Map<Long, String> teamRows = null;
+        try {
+            if (members) {
+                memberRows = bulkChanges.members(event.getChangeSeq());
+            } else {
+                teamRows = bulkChanges.teams(event.getChangeSeq());
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (memberRows != null) {
+                    for (MemberState state : memberRows) {
+                        if (!changed.changedSince(state.getId(), since)) {
+                            remove(state.getId());
+                            upsert(state);
+                        }
+                    }
+                }
+                if (teamRows != null) {
+                    for (Map.Entry<Long, String> entry : teamRows.entrySet()) {
+                        if (!changed.changedSince(entry.getKey(), since)) {
+                            teamNameBySlot.set(slotOf(entry.getKey()), entry.getValue());
+                        }
+                    }
+                }
+            } finally {
+                changed.end();
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean supports(MemberSearchDto condition) {
+        return enabled && loaded && !overflow && SnapshotReads.allowed()
+            && !MemberSearchPredicate.hasUsernameFilter(condition)
+            && !MemberSearchPredicate.hasAgeGroupFilter(condition);
+    }
+
+    public long count(MemberSearchDto condition) {
+        lock.readLock().lock();
+        try {
+            return match(condition).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞는 id 를 오름차순으로 offset 부터 limit 개 돌려준다.
+     */
+    public long[] ids(MemberSearchDto condition, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] ordinals = match(condition).slice(offset, limit);
+            long[] ids = new long[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                ids[i] = ordinals[i];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 읽기 잠금을 잡은 상태에서 호출한다. 돌려준 비트맵은 인덱스 내부 객체일 수 있으므로 잠금 밖으로 내보내지 않는다.
+     */
+    private RoaringBitmap match(MemberSearchDto condition) {
+        RoaringBitmap result = null;
+
+        if (hasText(condition.getTeamName())) {
+            List<RoaringBitmap> teams = new ArrayList<>(1);
+            for (int slot = 0; slot < teamNameBySlot.size(); slot++) {
+                if (condition.getTeamName().equals(teamNameBySlot.get(slot))) {
+                    teams.add(byTeamSlot.get(slot));
+                }
+            }
+            result = union(teams);
+        }
+
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null || ageLoe != null) {
+            int from = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+            int to = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+            if (from > to) {
+                return new RoaringBitmap();
+            }
+            RoaringBitmap ages = union(byAge.subMap(from, true, to, true).values());
+            result = result == null ? ages : RoaringBitmap.and(result, ages);
+        }
+
+        return result == null ? all : result;
+    }
+
+    private static RoaringBitmap union(Iterable<RoaringBitmap> bitmaps) {
+        RoaringBitmap only = null;
+        int count = 0;
+        for (RoaringBitmap bitmap : bitmaps) {
+            only = bitmap;
+            if (++count > 1) {
+                return RoaringBitmap.orAll(bitmaps);
+            }
+        }
+        return count == 1 ? only : new RoaringBitmap();
+    }
+
+    private void upsert(MemberState state) {
+        long id = state.getId();
+        if (id > Integer.MAX_VALUE) {
+            overflow = true;
+            return;
+        }
+        int ordinal = (int) id;
+        int slot = state.getTeamId() == null ? NO_TEAM : slotOf(state.getTeamId());
+
+        all.add(ordinal);
+        byAge.computeIfAbsent(state.getAge(), age -> new RoaringBitmap()).add(ordinal);
+        if (slot != NO_TEAM) {
+            byTeamSlot.get(slot).add(ordinal);
+        }
+        ageByMember.put(id, state.getAge());
+        teamSlotByMember.put(id, slot);
+    }
+
+    private void remove(long id) {
+        int age = ageByMember.remove(id);
+        int slot = teamSlotByMember.remove(id);
+        if (age == NO_AGE) {
+            return;
+        }
+        int ordinal = (int) id;
+        all.remove(ordinal);
+        RoaringBitmap ages = byAge.get(age);
+        ages.remove(ordinal);
+        if (ages.isEmpty()) {
+            byAge.remove(age);
+        }
+        if (slot >= 0) {
+            byTeamSlot.get(slot).remove(ordinal);
+        }
+    }
+
+    private int slotOf(long teamId) {
+        int slot = teamSlotById.get(teamId);
+        if (slot == MISSING) {
+            slot = byTeamSlot.size();
+            teamSlotById.put(teamId, slot);
+            byTeamSlot.add(new RoaringBitmap());
+            teamNameBySlot.add(null);
+        }
+        return slot;
+    }
+}
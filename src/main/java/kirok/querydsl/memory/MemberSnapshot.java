@@ -0,0 +1,561 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import kirok.querydsl.repository.MemberSearchPredicate;
+import kirok.querydsl.repository.MemberSortOrders;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * member ⨝ team 의 컬럼형 메모리 복제본.
+ * <p>
+ * 행은 member_id 오름차순으로 유지되고 컬럼마다 기본형 배열 하나를 쓴다. username 과 team name 은 사전 인코딩해서 int 코드로
+ * 비교한다. 기동 시 한 번 적재한 뒤에는 커밋 후 발행되는 {@link MemberChangedEvent}, {@link TeamChangedEvent} 로 갱신된다.
+ * 삭제된 행은 표시만 해 두었다가 절반 이상 쌓이면 압축한다.
+ * <p>
+ * Querydsl 벌크 update, delete 는 행 단위 이벤트가 없으므로 {@link BulkChangedEvent} 를 받으면 스냅샷을 무효로 하고(조회는 DB
+ * 로 간다) 별도 스레드에서 다시 적재한다. 적재 중에 다시 무효가 되면 적재가 끝나도 무효로 두고 한 번 더 적재한다. 적재는
+ * 잠금 밖에서 새 배열에 하고 쓰기 잠금 안에서는 교체와 그동안 들어온 이벤트 반영만 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_TEAM = 0L;
+    private static final Comparator<String> NULLS_FIRST =
+        Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${member.snapshot.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean loaded;
+
+    /**
+     * 벌크 변경마다 올라간다. 적재를 시작할 때 값과 끝날 때 값이 다르면 적재 결과를 믿지 않는다.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "member-snapshot-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadLock = new Object();
+    private Queue<Object> replay;
+    private StringDictionary usernames = new StringDictionary();
+    private StringDictionary teamNames = new StringDictionary();
+    private Map<Long, Integer> teamNameCodeById = new HashMap<>();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private int[] usernameCodes = new int[INITIAL_CAPACITY];
+    private long[] teamIds = new long[INITIAL_CAPACITY];
+    private int[] teamNameCodes = new int[INITIAL_CAPACITY];
+    private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private int deletedCount;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (loadLock) {
+            long generation = invalidations.get();
+            Queue<Object> received = new ConcurrentLinkedQueue<>();
+            lock.writeLock().lock();
+            try {
+                replay = received;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // 조회와 이벤트 반영은 그동안 기존 배열로 계속된다. 적재 중에 들어온 이벤트는 교체한 뒤에 다시 반영한다.
+            Columns fresh;
+            try {
+                fresh = ReadYourWrites.onPrimary(() -> read());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    replay = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                replay = null;
+                usernames = fresh.usernames;
+                teamNames = fresh.teamNames;
+                teamNameCodeById = fresh.teamNameCodeById;
+                ids = fresh.ids;
+                ages = fresh.ages;
+                usernameCodes = fresh.usernameCodes;
+                teamIds = fresh.teamIds;
+                teamNameCodes = fresh.teamNameCodes;
+                deleted = fresh.deleted;
+                size = fresh.size;
+                deletedCount = 0;
+                // 적재가 읽은 값보다 오래된 이벤트도 섞여 있지만 반영은 upsert 라서 들어온 순서대로 다시 반영하면 된다.
+                Object event;
+                while ((event = received.poll()) != null) {
+                    if (event instanceof TeamChangedEvent) {
+                        apply((TeamChangedEvent) event);
+                    } else {
+                        apply((MemberChangedEvent) event);
+                    }
+                }
+                loaded = invalidations.get() == generation;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 잠금 없이 새 컬럼을 만든다. 결과 목록을 한꺼번에 올리지 않도록 행을 하나씩 읽는다.
+     */
+    private Columns read() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> {
+            Columns columns = new Columns();
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                columns.teamNameCodeById.put(row.get(team.id),
+                    columns.teamNames.encode(row.get(team.name)));
+            }
+            try (CloseableIterator<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, team.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc())
+                .iterate()) {
+                while (rows.hasNext()) {
+                    Tuple row = rows.next();
+                    columns.append(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(team.id));
+                }
+            }
+            return columns;
+        });
+    }
+
+    /**
+     * 벌크 변경은 어떤 행이 바뀌었는지 모르므로 다시 적재한다. 연달아 들어온 변경은 한 번의 적재로 합친다.
+     */
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (!enabled
+            || (event.getEntityType() != Member.class && event.getEntityType() != Team.class)) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        loaded = false;
+        if (reloadQueued.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadQueued.set(false);
+                load();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        reloader.shutdownNow();
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 쓰기 잠금을 잡은 상태에서 호출한다.
+     */
+    private void apply(MemberChangedEvent event) {
+        if (event.getType() == ChangeType.DELETE) {
+            remove(event.getMemberId());
+        } else {
+            upsert(event.getAfter());
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 쓰기 잠금을 잡은 상태에서 호출한다.
+     */
+    private void apply(TeamChangedEvent event) {
+        long teamId = event.getTeamId();
+        int code;
+        if (event.getType() == ChangeType.DELETE) {
+            teamNameCodeById.remove(teamId);
+            code = StringDictionary.NULL_CODE;
+        } else {
+            code = teamNames.encode(event.getName());
+            teamNameCodeById.put(teamId, code);
+        }
+        for (int row = 0; row < size; row++) {
+            if (teamIds[row] == teamId) {
+                teamNameCodes[row] = code;
+            }
+        }
+    }
+
+    /**
+     * 스냅샷으로 답할 수 있는 조회인지. username 은 완전 일치만, 정렬은 MemberTeamDto 필드만 지원한다.
+     */
+    public boolean supports(MemberSearchDto condition, Sort sort) {
+        if (!enabled || !loaded || !SnapshotReads.allowed()) {
+            return false;
+        }
+        if (hasText(condition.getUsernameStartsWith()) || hasText(condition.getUsernameContains())
+            || MemberSearchPredicate.hasAgeGroupFilter(condition)) {
+            return false;
+        }
+        return MemberSortOrders.supports(sort);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchDto condition) {
+        lock.readLock().lock();
+        try {
+            int[] rows = match(condition);
+            List<MemberTeamDto> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(toDto(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchDto condition, Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            int[] rows = match(condition);
+            if (pageable.getSort().isSorted()) {
+                rows = sort(rows, pageable.getSort());
+            }
+
+            int from = (int) Math.min(offset, rows.length);
+            int to = (int) Math.min((long) from + limit, rows.length);
+            List<MemberTeamDto> content = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                content.add(toDto(rows[i]));
+            }
+            return new PageImpl<>(content, pageable, rows.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞는 행 번호를 member_id 순서로 돌려준다. 읽기 잠금을 잡은 상태에서 호출한다.
+     */
+    private int[] match(MemberSearchDto condition) {
+        int usernameCode = StringDictionary.NULL_CODE;
+        if (hasText(condition.getUsername())) {
+            usernameCode = usernames.codeOf(condition.getUsername());
+            if (usernameCode == StringDictionary.NULL_CODE) {
+                return new int[0];
+            }
+        }
+        int teamNameCode = StringDictionary.NULL_CODE;
+        if (hasText(condition.getTeamName())) {
+            teamNameCode = teamNames.codeOf(condition.getTeamName());
+            if (teamNameCode == StringDictionary.NULL_CODE) {
+                return new int[0];
+            }
+        }
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+        if (ageGoe > ageLoe) {
+            return new int[0];
+        }
+
+        int[] rows = new int[size - deletedCount];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (deleted[row]
+                || ages[row] < ageGoe || ages[row] > ageLoe
+                || (usernameCode != StringDictionary.NULL_CODE && usernameCodes[row] != usernameCode)
+                || (teamNameCode != StringDictionary.NULL_CODE && teamNameCodes[row] != teamNameCode)) {
+                continue;
+            }
+            rows[count++] = row;
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * 행 번호 배열을 그대로 병합 정렬한다. 안정 정렬이므로 같은 값끼리는 member_id 순서가 유지된다. null 은 가장 작은 값으로 본다.
+     * DB 경로와 같은 순서이다({@link MemberSortOrders}).
+     */
+    private int[] sort(int[] rows, Sort sort) {
+        List<RowComparator> comparators = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            RowComparator next = comparatorOf(order.getProperty());
+            comparators.add(order.isDescending() ? (a, b) -> next.compare(b, a) : next);
+        }
+        RowComparator comparator = (a, b) -> {
+            for (RowComparator each : comparators) {
+                int result = each.compare(a, b);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int from = 0; from < rows.length; from += 2 * width) {
+                int mid = Math.min(from + width, rows.length);
+                int to = Math.min(from + 2 * width, rows.length);
+                int left = from;
+                int right = mid;
+                for (int i = from; i < to; i++) {
+                    if (left < mid && (right >= to
+                        || comparator.compare(rows[left], rows[right]) <= 0)) {
+                        buffer[i] = rows[left++];
+                    } else {
+                        buffer[i] = rows[right++];
+                    }
+                }
+            }
+            int[] swap = rows;
+            rows = buffer;
+            buffer = swap;
+        }
+        return rows;
+    }
+
+    private RowComparator comparatorOf(String property) {
+        switch (property) {
+            case "id":
+            case "memberId":
+                return (a, b) -> Long.compare(ids[a], ids[b]);
+            case "age":
+                return (a, b) -> Integer.compare(ages[a], ages[b]);
+            case "teamId":
+                return (a, b) -> Long.compare(teamIds[a], teamIds[b]);
+            case "username":
+                return (a, b) -> NULLS_FIRST.compare(usernames.decode(usernameCodes[a]),
+                    usernames.decode(usernameCodes[b]));
+            case "teamName":
+                return (a, b) -> NULLS_FIRST.compare(teamNames.decode(teamNameCodes[a]),
+                    teamNames.decode(teamNameCodes[b]));
+            default:
+                throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowComparator {
+
+        int compare(int a, int b);
+    }
+
+    private MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(
+            ids[row],
+            usernames.decode(usernameCodes[row]),
+            ages[row],
+            teamIds[row] == NO_TEAM ? null : teamIds[row],
+            teamNames.decode(teamNameCodes[row]));
+    }
+
+    private void upsert(MemberState state) {
+        int row = Arrays.binarySearch(ids, 0, size, state.getId());
+        if (row < 0) {
+            row = -(row + 1);
+            ensureCapacity(size + 1);
+            shiftRight(row);
+            size++;
+        } else if (deleted[row]) {
+            deleted[row] = false;
+            deletedCount--;
+        }
+        set(row, state);
+    }
+
+    private void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0 && !deleted[row]) {
+            deleted[row] = true;
+            deletedCount++;
+        }
+    }
+
+    private void set(int row, MemberState state) {
+        Long teamId = state.getTeamId();
+        ids[row] = state.getId();
+        ages[row] = state.getAge();
+        usernameCodes[row] = usernames.encode(state.getUsername());
+        teamIds[row] = teamId == null ? NO_TEAM : teamId;
+        teamNameCodes[row] = teamId == null
+            ? StringDictionary.NULL_CODE
+            : teamNameCodeById.getOrDefault(teamId, StringDictionary.NULL_CODE);
+        deleted[row] = false;
+    }
+
+    private void shiftRight(int row) {
+        int moved = size - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(ages, row, ages, row + 1, moved);
+        System.arraycopy(usernameCodes, row, usernameCodes, row + 1, moved);
+        System.arraycopy(teamIds, row, teamIds, row + 1, moved);
+        System.arraycopy(teamNameCodes, row, teamNameCodes, row + 1, moved);
+        System.arraycopy(deleted, row, deleted, row + 1, moved);
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount < INITIAL_CAPACITY || deletedCount * 2 < size) {
+            return;
+        }
+        int to = 0;
+        for (int from = 0; from < size; from++) {
+            if (deleted[from]) {
+                continue;
+            }
+            ids[to] = ids[from];
+            ages[to] = ages[from];
+            usernameCodes[to] = usernameCodes[from];
+            teamIds[to] = teamIds[from];
+            teamNameCodes[to] = teamNameCodes[from];
+            deleted[to] = false;
+            to++;
+        }
+        size = to;
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        usernameCodes = Arrays.copyOf(usernameCodes, newCapacity);
+        teamIds = Arrays.copyOf(teamIds, newCapacity);
+        teamNameCodes = Arrays.copyOf(teamNameCodes, newCapacity);
+        deleted = Arrays.copyOf(deleted, newCapacity);
+    }
+
+    /**
+     * 잠금 밖에서 새로 적재하는 컬럼. 다 채운 뒤에 쓰기 잠금 안에서 필드를 통째로 바꾼다.
+     */
+    private static final class Columns {
+
+        private final StringDictionary usernames = new StringDictionary();
+        private final StringDictionary teamNames = new StringDictionary();
+        private final Map<Long, Integer> teamNameCodeById = new HashMap<>();
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] ages = new int[INITIAL_CAPACITY];
+        private int[] usernameCodes = new int[INITIAL_CAPACITY];
+        private long[] teamIds = new long[INITIAL_CAPACITY];
+        private int[] teamNameCodes = new int[INITIAL_CAPACITY];
+        private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+        private int size;
+
+        private void append(long id, String username, int age, Long teamId) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+                teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+                deleted = Arrays.copyOf(deleted, capacity);
+            }
+            ids[size] = id;
+            ages[size] = age;
+            usernameCodes[size] = usernames.encode(username);
+            teamIds[size] = teamId == null ? NO_TEAM : teamId;
+            teamNameCodes[size] = teamId == null
+                ? StringDictionary.NULL_CODE
+                : teamNameCodeById.getOrDefault(teamId, StringDictionary.NULL_CODE);
+            size++;
+        }
+    }
+}
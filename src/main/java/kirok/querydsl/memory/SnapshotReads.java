@@ -0,0 +1,18 @@
+package kirok.querydsl.memory;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 메모리 스냅샷과 인덱스는 커밋된 변경만 반영한다. 읽기/쓰기 트랜잭션 안에서는 아직 커밋하지 않은 자기 쓰기를 볼 수 없으므로
+ * DB 로 조회해야 한다.
+ */
+public final class SnapshotReads {
+
+    private SnapshotReads() {
+    }
+
+    public static boolean allowed() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,56 @@
+package kirok.querydsl.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 문자열 컬럼 사전 인코딩. 같은 문자열은 같은 int 코드를 받고, null 은 {@link #NULL_CODE} 이다.
+ * <p>
+ * 코드는 한 번 부여되면 바뀌지 않는다. 동기화는 사용하는 쪽에서 한다.
+ */
+public class StringDictionary {
+
+    public static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * 사전에 없는 문자열이면 {@link #NULL_CODE} 를 돌려준다. 없는 값으로 검색하면 결과가 비어 있다는 뜻이다.
+     */
+    public int codeOf(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        codes.clear();
+        values.clear();
+    }
+}
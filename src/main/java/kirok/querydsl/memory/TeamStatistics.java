@@ -0,0 +1,389 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.dto.TeamStatsDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.entity.TombstoneType;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeFeed;
+import kirok.querydsl.event.ChangeListener;
+import kirok.querydsl.event.ChangeSubscription;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import kirok.querydsl.version.ChangeSequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 팀별 회원 수, 나이 합계, 최소/최대 나이.
+ * <p>
+ * 커밋 후 {@link MemberChangedEvent} 의 이전 값을 빼고 새 값을 더한다. 회원 수와 합계는 LongAdder 라서 여러 커밋 스레드가
+ * 동시에 갱신해도 경합이 적다. 최소/최대는 삭제가 있으므로 팀마다 나이별 인원(TreeMap)을 두고 양 끝 키를 읽는다. 조회는 팀
+ * 수만큼만 돈다.
+ * <p>
+ * 이전 값을 모르는 UPDATE 나 벌크 연산처럼 이벤트로 따라갈 수 없는 변경은 member.team-stats.reconcile-interval-ms 마다
+ * DB 집계로 다시 맞춘다. {@link ChangeFeed} 가 켜져 있으면 구독해서 회원, 팀 벌크 연산이 들어오는 대로 구독 스레드에서 바로
+ * 다시 맞춘다. 집계는 잠금 밖에서 REPEATABLE READ 스냅샷으로 읽고, 새 맵으로 참조를 바꿔 끼운다. 집계 중에 들어온
+ * 이벤트는 모아 두었다가 새 맵에 다시 반영한다. 커밋과 이벤트 전달 사이에 집계가 끼면 같은 변경이 두 번 더해지므로, 집계는
+ * 시작 시점의 {@link ChangeSequence#safeWatermark()} 와 그 뒤에 바뀐 회원의 changeSeq 를 함께 읽고 이미 반영된 이벤트는
+ * 건너뛴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatistics {
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final ChangeFeed changeFeed;
+
+    @Value("${member.team-stats.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean loaded;
+
+    /**
+     * 이벤트 반영은 읽기 잠금, 맵 교체는 쓰기 잠금이다. 조회는 잠금 없이 참조를 한 번 읽는다.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconcileLock = new Object();
+    private volatile ConcurrentMap<Long, TeamAggregate> byTeamId = new ConcurrentHashMap<>();
+    private volatile Coverage coverage = Coverage.NONE;
+    private Queue<Object> replay;
+    private ChangeSubscription subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        if (enabled && changeFeed.isEnabled()) {
+            subscription = changeFeed.subscribe("team-stats", new ChangeListener() {
+                @Override
+                public void onBulk(BulkChangedEvent event) {
+                    if (event.getEntityType() == Member.class
+                        || event.getEntityType() == Team.class) {
+                        reconcile();
+                    }
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.team-stats.reconcile-interval-ms:300000}",
+        initialDelayString = "${member.team-stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (reconcileLock) {
+            Queue<Object> received = new ConcurrentLinkedQueue<>();
+            lock.writeLock().lock();
+            try {
+                replay = received;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Snapshot fresh;
+            try {
+                fresh = ReadYourWrites.onPrimary(() -> aggregate(true));
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    replay = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            ConcurrentMap<Long, TeamAggregate> teams = new ConcurrentHashMap<>(fresh.teams);
+            replay(received, teams, fresh.coverage);
+            if (loaded) {
+                logDrift(teams);
+            }
+
+            lock.writeLock().lock();
+            try {
+                // 위에서 비운 뒤에 들어온 이벤트를 마저 반영한다. 쓰기 잠금 중이라 새로 들어오는 이벤트는 없다.
+                replay(received, teams, fresh.coverage);
+                replay = null;
+                coverage = fresh.coverage;
+                byTeamId = teams;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            if (!coverage.covers(event)) {
+                apply(byTeamId, event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        // 이름 변경과 삭제는 여러 번 반영해도 결과가 같으므로 집계 중에 들어온 것은 새 맵에 그대로 다시 반영한다.
+        lock.readLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            apply(byTeamId, event);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && loaded && SnapshotReads.allowed();
+    }
+
+    /**
+     * 팀 id 순. 회원이 없는 팀은 회원 수 0 으로 나온다.
+     */
+    public List<TeamStatsDto> statistics() {
+        Map<Long, TeamAggregate> teams = byTeamId;
+        List<TeamStatsDto> result = new ArrayList<>(teams.size());
+        teams.forEach((teamId, aggregate) -> result.add(aggregate.toDto(teamId)));
+        result.sort(Comparator.comparing(TeamStatsDto::getTeamId));
+        return result;
+    }
+
+    /**
+     * 집계를 쓸 수 없을 때 DB 에서 바로 계산한다. 회원 수에 비례하는 group by 이다.
+     */
+    public List<TeamStatsDto> statisticsFromDatabase() {
+        List<TeamStatsDto> result = new ArrayList<>();
+        aggregate(false).teams
+            .forEach((teamId, aggregate) -> result.add(aggregate.toDto(teamId)));
+        return result;
+    }
+
+    /**
+     * DB 에서 (팀, 나이) 별 인원을 읽어 새 집계를 만든다. 결과 행 수는 팀 수 x 나이 종류 수이다.
+     * <p>
+     * withCoverage 이면 같은 스냅샷에서 시작 워터마크 뒤에 바뀌거나 삭제된 회원의 changeSeq 도 읽는다. 워터마크 이하는 모두
+     * 끝난 변경이라 스냅샷에 들어 있고, 그 뒤의 변경은 회원별 changeSeq 로 들어 있는지 판단한다.
+     */
+    private Snapshot aggregate(boolean withCoverage) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        if (withCoverage) {
+            tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        }
+        long watermark = ChangeSequence.safeWatermark();
+
+        return tx.execute(status -> {
+            Map<Long, TeamAggregate> result = new TreeMap<>();
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                TeamAggregate aggregate = new TeamAggregate();
+                aggregate.name = row.get(team.name);
+                result.put(row.get(team.id), aggregate);
+            }
+            for (Tuple row : queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch()) {
+                result.computeIfAbsent(row.get(member.team.id), id -> new TeamAggregate())
+                    .add(row.get(member.age), row.get(member.count()));
+            }
+            if (!withCoverage) {
+                return new Snapshot(result, Coverage.NONE);
+            }
+
+            Map<Long, Long> changeSeqById = new HashMap<>();
+            for (Tuple row : queryFactory.select(member.id, member.changeSeq)
+                .from(member)
+                .where(member.changeSeq.gt(watermark))
+                .fetch()) {
+                changeSeqById.merge(row.get(member.id), row.get(member.changeSeq), Math::max);
+            }
+            for (Tuple row : queryFactory.select(tombstone.entityId, tombstone.changeSeq)
+                .from(tombstone)
+                .where(tombstone.type.eq(TombstoneType.MEMBER),
+                    tombstone.changeSeq.gt(watermark))
+                .fetch()) {
+                changeSeqById.merge(row.get(tombstone.entityId), row.get(tombstone.changeSeq),
+                    Math::max);
+            }
+            return new Snapshot(result, new Coverage(watermark, changeSeqById));
+        });
+    }
+
+    private static void replay(Queue<Object> received, Map<Long, TeamAggregate> teams,
+        Coverage coverage) {
+        Object event;
+        while ((event = received.poll()) != null) {
+            if (event instanceof TeamChangedEvent) {
+                apply(teams, (TeamChangedEvent) event);
+            } else if (!coverage.covers((MemberChangedEvent) event)) {
+                apply(teams, (MemberChangedEvent) event);
+            }
+        }
+    }
+
+    private static void apply(Map<Long, TeamAggregate> teams, TeamChangedEvent event) {
+        if (event.getType() == ChangeType.DELETE) {
+            teams.remove(event.getTeamId());
+        } else {
+            teams.computeIfAbsent(event.getTeamId(), id -> new TeamAggregate())
+                .name = event.getName();
+        }
+    }
+
+    private static void apply(Map<Long, TeamAggregate> teams, MemberChangedEvent event) {
+        MemberState before = event.getBefore();
+        MemberState after = event.getAfter();
+        if (before != null && before.getTeamId() != null) {
+            teams.computeIfAbsent(before.getTeamId(), id -> new TeamAggregate())
+                .remove(before.getAge());
+        }
+        if (after != null && after.getTeamId() != null) {
+            teams.computeIfAbsent(after.getTeamId(), id -> new TeamAggregate())
+                .add(after.getAge());
+        }
+    }
+
+    private void logDrift(Map<Long, TeamAggregate> fresh) {
+        Map<Long, TeamAggregate> current = byTeamId;
+        for (Map.Entry<Long, TeamAggregate> entry : fresh.entrySet()) {
+            TeamAggregate aggregate = current.get(entry.getKey());
+            long expected = entry.getValue().count.sum();
+            long actual = aggregate == null ? 0 : aggregate.count.sum();
+            if (expected != actual) {
+                log.info("team statistics drift: teamId={}, count={}, expected={}",
+                    entry.getKey(), actual, expected);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+
+        private final Map<Long, TeamAggregate> teams;
+        private final Coverage coverage;
+    }
+
+    /**
+     * 집계 스냅샷에 이미 들어 있는 변경. 번호를 모르는 이벤트는 들어 있지 않은 것으로 본다.
+     */
+    @RequiredArgsConstructor
+    private static class Coverage {
+
+        private static final Coverage NONE = new Coverage(0, Collections.emptyMap());
+
+        private final long watermark;
+        private final Map<Long, Long> changeSeqById;
+
+        boolean covers(MemberChangedEvent event) {
+            long seq = event.getChangeSeq();
+            if (seq <= 0) {
+                return false;
+            }
+            return seq <= watermark
+                || seq <= changeSeqById.getOrDefault(event.getMemberId(), 0L);
+        }
+    }
+
+    private static class TeamAggregate {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder ageSum = new LongAdder();
+        private final TreeMap<Integer, long[]> countByAge = new TreeMap<>();
+        private volatile String name;
+
+        void add(int age) {
+            add(age, 1);
+        }
+
+        void add(int age, long members) {
+            count.add(members);
+            ageSum.add(age * members);
+            synchronized (countByAge) {
+                countByAge.computeIfAbsent(age, a -> new long[1])[0] += members;
+            }
+        }
+
+        void remove(int age) {
+            count.decrement();
+            ageSum.add(-age);
+            synchronized (countByAge) {
+                long[] members = countByAge.get(age);
+                if (members != null && --members[0] <= 0) {
+                    countByAge.remove(age);
+                }
+            }
+        }
+
+        TeamStatsDto toDto(Long teamId) {
+            Integer min;
+            Integer max;
+            synchronized (countByAge) {
+                min = countByAge.isEmpty() ? null : countByAge.firstKey();
+                max = countByAge.isEmpty() ? null : countByAge.lastKey();
+            }
+            return new TeamStatsDto(teamId, name, count.sum(), ageSum.sum(), min, max);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QMember.member;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * username 접두어/부분 문자열 검색용 역색인.
+ * <p>
+ * 서로 다른 username 을 정렬된 사전(TreeMap)으로 두고 username 마다 회원 id 비트맵을 단다. 접두어 검색은 사전의 범위 조회,
+ * 부분 문자열 검색은 3-gram 게시 목록의 교집합으로 후보 username 을 좁힌 뒤 실제로 포함하는지 확인한다. 3 글자보다 짧은
+ * 검색어는 사전을 훑는다. 결과는 후보 id 이며 Querydsl id IN 조회로 채운다.
+ * <p>
+ * 커밋 후 {@link MemberChangedEvent}, {@link BulkChangedEvent} 로 갱신된다.
+ * <p>
+ * 후보가 member.username-index.max-candidates 보다 많으면 IN 목록이 너무 커지므로 null 을 돌려주고 LIKE 로 조회하게 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsernameIndex {
+
+    private static final int GRAM = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final BulkChangeReader bulkChanges;
+
+    @Value("${member.username-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${member.username-index.max-candidates:1000}")
+    private int maxCandidates;
+
+    private volatile boolean loaded;
+    private volatile boolean overflow;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangedDuringRead changedDuringRead = new ChangedDuringRead();
+    private final NavigableMap<String, RoaringBitmap> idsByUsername = new TreeMap<>();
+    private final Map<String, Set<String>> usernamesByGram = new HashMap<>();
+    private final Map<Long, String> usernameById = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            ReadYourWrites.onPrimary(() -> tx.executeWithoutResult(status -> {
+                for (Tuple row : queryFactory.select(member.id, member.username).from(member)
+                    .fetch()) {
+                    remove(row.get(member.id));
+                    add(row.get(member.id), row.get(member.username));
+                }
+            }));
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringRead.record(event.getMemberId());
+            remove(event.getMemberId());
+            if (event.getType() != ChangeType.DELETE) {
+                add(event.getMemberId(), event.getAfter().getUsername());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 벌크 delete 는 지운 id 를 빼고, 벌크 update 는 바뀐 행을 잠금 밖에서 다시 읽은 뒤 잠금을 잡고 반영한다.
+     */
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (!enabled || event.getEntityType() != Member.class) {
+            return;
+        }
+        if (event.getType() == ChangeType.DELETE) {
+            lock.writeLock().lock();
+            try {
+                event.getIds().forEach(this::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        long since;
+        lock.writeLock().lock();
+        try {
+            since = changedDuringRead.begin();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<MemberState> rows = null;
+        try {
+            rows = bulkChanges.members(event.getChangeSeq());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rows != null) {
+                    for (MemberState state : rows) {
+                        if (!changedDuringRead.changedSince(state.getId(), since)) {
+                            remove(state.getId());
+                            add(state.getId(), state.getUsername());
+                        }
+                    }
+                }
+            } finally {
+                changedDuringRead.end();
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * usernameStartsWith, usernameContains 조건을 만족하는 회원 id. 두 조건이 없거나 인덱스로 답할 수 없으면 null 이다.
+     */
+    public List<Long> candidates(MemberSearchDto condition) {
+        String prefix = condition.getUsernameStartsWith();
+        String infix = condition.getUsernameContains();
+        if (!hasText(prefix) && !hasText(infix)) {
+            return null;
+        }
+        if (!enabled || !loaded || overflow || !SnapshotReads.allowed()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 회원은 username 하나에만 속하므로 합집합의 원소 수는 username 별 원소 수의 합이다. 한도를 넘는 순간 멈춘다.
+            RoaringBitmap result = new RoaringBitmap();
+            long cardinality = 0;
+            for (String username : usernames(prefix, infix)) {
+                if ((hasText(prefix) && !username.startsWith(prefix))
+                    || (hasText(infix) && !username.contains(infix))) {
+                    continue;
+                }
+                RoaringBitmap ids = idsByUsername.get(username);
+                cardinality += ids.cardinality();
+                if (cardinality > maxCandidates) {
+                    return null;
+                }
+                result.or(ids);
+            }
+
+            List<Long> ids = new ArrayList<>((int) cardinality);
+            result.forEach(id -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건을 검사할 username 후보. 포함 조건에 n-gram 이 있으면 가장 짧은 posting 을, 없으면 접두사 범위를, 둘 다 없으면 전체를
+     * 돌려준다.
+     */
+    private Iterable<String> usernames(String prefix, String infix) {
+        if (hasText(infix) && infix.length() >= GRAM) {
+            Set<String> smallest = null;
+            for (int i = 0; i + GRAM <= infix.length(); i++) {
+                Set<String> posting = usernamesByGram.getOrDefault(
+                    infix.substring(i, i + GRAM), Collections.emptySet());
+                if (smallest == null || posting.size() < smallest.size()) {
+                    smallest = posting;
+                }
+            }
+            return smallest;
+        }
+        if (hasText(prefix)) {
+            return idsByUsername.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .keySet();
+        }
+        return idsByUsername.keySet();
+    }
+
+    private void add(long id, String username) {
+        if (username == null) {
+            return;
+        }
+        if (id > Integer.MAX_VALUE) {
+            overflow = true;
+            return;
+        }
+        RoaringBitmap ids = idsByUsername.get(username);
+        if (ids == null) {
+            ids = new RoaringBitmap();
+            idsByUsername.put(username, ids);
+            for (String gram : grams(username)) {
+                usernamesByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(username);
+            }
+        }
+        ids.add((int) id);
+        usernameById.put(id, username);
+    }
+
+    private void remove(long id) {
+        String username = usernameById.remove(id);
+        if (username == null) {
+            return;
+        }
+        RoaringBitmap ids = idsByUsername.get(username);
+        ids.remove((int) id);
+        if (!ids.isEmpty()) {
+            return;
+        }
+        idsByUsername.remove(username);
+        for (String gram : grams(username)) {
+            Set<String> posting = usernamesByGram.get(gram);
+            posting.remove(username);
+            if (posting.isEmpty()) {
+                usernamesByGram.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String username) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= username.length(); i++) {
+            grams.add(username.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,58 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.repository.support.ChunkedUpdater;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Member.ageGroup 을 현재 경계로 다시 계산한다. 컬럼이 새로 생겼거나 경계를 바꿨거나 벌크 update 로 age 가 바뀐 행을 맞춘다.
+ * <p>
+ * 값이 이미 맞는 행은 건드리지 않으므로 여러 번 실행해도 된다. 범위마다 별도 트랜잭션으로 커밋되고, 범위 update 가
+ * {@link kirok.querydsl.repository.support.VersionedJPAUpdateClause} 라서 바뀐 행이 있는 범위마다 자기 changeSeq 로
+ * {@link kirok.querydsl.event.BulkChangedEvent} 가 하나씩 커밋 후에 나간다. 받는 쪽은 그 changeSeq 의 행만 다시 읽으면
+ * 되고, 중간에 실패해도 이미 커밋된 범위는 반영된다. 끝에 한 번만 내면 범위마다 다른 changeSeq 를 하나로 가리킬 수 없어서
+ * 범위마다 낸다. 기동 시에는 member_team_view 재생성보다 먼저 실행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgeGroupBackfill {
+
+    private final JPAQueryFactory queryFactory;
+    private final ChunkedUpdater chunkedUpdater;
+    private final AgeGroups ageGroups;
+
+    @Value("${member.age-group.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${member.age-group.backfill-chunk-size:10000}")
+    private int chunkSize;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (backfillOnStartup) {
+            ReadYourWrites.isolated(this::backfill);
+        }
+    }
+
+    public long backfill() {
+        NumberExpression<Integer> expected = ageGroups.caseOf(member.age);
+        return chunkedUpdater.update(member, member.id, chunkSize, (from, to) ->
+            queryFactory.update(member)
+                .set(member.ageGroup, expected)
+                .where(member.id.between(from, to),
+                    member.ageGroup.isNull().or(member.ageGroup.ne(expected)))
+                .execute());
+    }
+}
@@ -0,0 +1,137 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.DeletedDto;
+import kirok.querydsl.dto.MemberChangeDto;
+import kirok.querydsl.dto.MemberChangesDto;
+import kirok.querydsl.dto.QDeletedDto;
+import kirok.querydsl.dto.QMemberChangeDto;
+import kirok.querydsl.dto.QTeamChangeDto;
+import kirok.querydsl.dto.TeamChangeDto;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
+import kirok.querydsl.version.ChangeSequence;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * changeSeq 기준 델타 조회. member, team, tombstone 을 각각 (changeSeq, id) 로 keyset 조회하므로 비용은 테이블 크기가 아니라
+ * 변경 건수에 비례한다.
+ */
+@Repository
+public class MemberChangeRepository {
+
+    private static final Comparator<long[]> KEY_ORDER =
+        Comparator.<long[]>comparingLong(key -> key[0]).thenComparingLong(key -> key[1]);
+
+    private final JPAQueryFactory queryFactory;
+
+    public MemberChangeRepository(EntityManager em) {
+        this.queryFactory = new DeadlineJPAQueryFactory(em);
+    }
+
+    /**
+     * 커서 (since, afterId) 뒤부터 {@link ChangeSequence#safeWatermark()} 이하의 변경을 (changeSeq, id) 순서로 최대 size 건
+     * 돌려준다. afterId 가 null 이면 since 번까지 모두 받은 것이고, 값이 있으면 since 번 중 id 가 afterId 이하인 행까지 받은
+     * 것이다. 벌크 update 는 여러 행에 같은 changeSeq 를 주므로 changeSeq 만으로는 페이지 경계를 나눌 수 없다.
+     * <p>
+     * replica 는 워터마크보다 늦을 수 있으므로 readOnly 로 두지 않고 primary 에서 읽는다.
+     */
+    @Transactional
+    public MemberChangesDto changesSince(long since, Long afterId, int size) {
+        long upper = ChangeSequence.safeWatermark();
+        if (upper < since || (upper == since && afterId == null)) {
+            return new MemberChangesDto(since, afterId, false, Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList());
+        }
+
+        // 목록마다 size + 1 건을 읽어 목록이 잘렸는지 알 수 있게 한다.
+        List<MemberChangeDto> members = queryFactory
+            .select(new QMemberChangeDto(member.changeSeq, member.id, member.username,
+                member.age, team.id, team.name))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(after(member.changeSeq, member.id, since, afterId),
+                member.changeSeq.loe(upper))
+            .orderBy(member.changeSeq.asc(), member.id.asc())
+            .limit(size + 1)
+            .fetch();
+
+        List<TeamChangeDto> teams = queryFactory
+            .select(new QTeamChangeDto(team.changeSeq, team.id, team.name))
+            .from(team)
+            .where(after(team.changeSeq, team.id, since, afterId), team.changeSeq.loe(upper))
+            .orderBy(team.changeSeq.asc(), team.id.asc())
+            .limit(size + 1)
+            .fetch();
+
+        List<DeletedDto> deleted = queryFactory
+            .select(new QDeletedDto(tombstone.changeSeq, tombstone.type, tombstone.entityId))
+            .from(tombstone)
+            .where(after(tombstone.changeSeq, tombstone.entityId, since, afterId),
+                tombstone.changeSeq.loe(upper))
+            .orderBy(tombstone.changeSeq.asc(), tombstone.entityId.asc())
+            .limit(size + 1)
+            .fetch();
+
+        if (members.size() + teams.size() + deleted.size() <= size) {
+            return new MemberChangesDto(upper, null, false, members, teams, deleted);
+        }
+
+        // 세 목록에서 (changeSeq, id) 가 작은 size 건까지만 돌려준다. 잘린 목록은 size + 1 건을 읽었으므로 읽지 않은 행은 모두
+        // cutoff 뒤에 있고, cutoff 이하의 변경은 빠짐없이 들어 있다.
+        long[] cutoff = cutoff(size,
+            keys(members, MemberChangeDto::getChangeSeq, MemberChangeDto::getMemberId),
+            keys(teams, TeamChangeDto::getChangeSeq, TeamChangeDto::getTeamId),
+            keys(deleted, DeletedDto::getChangeSeq, DeletedDto::getId));
+        return new MemberChangesDto(cutoff[0], cutoff[1], true,
+            upTo(members, MemberChangeDto::getChangeSeq, MemberChangeDto::getMemberId, cutoff),
+            upTo(teams, TeamChangeDto::getChangeSeq, TeamChangeDto::getTeamId, cutoff),
+            upTo(deleted, DeletedDto::getChangeSeq, DeletedDto::getId, cutoff));
+    }
+
+    private static BooleanExpression after(NumberPath<Long> seq, NumberPath<Long> id,
+        long since, Long afterId) {
+        if (afterId == null) {
+            return seq.gt(since);
+        }
+        return seq.goe(since).and(seq.gt(since).or(id.gt(afterId)));
+    }
+
+    @SafeVarargs
+    private static long[] cutoff(int size, List<long[]>... keys) {
+        List<long[]> all = new ArrayList<>();
+        for (List<long[]> list : keys) {
+            all.addAll(list);
+        }
+        all.sort(KEY_ORDER);
+        return all.get(size - 1);
+    }
+
+    private static <T> List<long[]> keys(List<T> rows, ToLongFunction<T> seq,
+        ToLongFunction<T> id) {
+        return rows.stream()
+            .map(row -> new long[]{seq.applyAsLong(row), id.applyAsLong(row)})
+            .collect(Collectors.toList());
+    }
+
+    private static <T> List<T> upTo(List<T> rows, ToLongFunction<T> seq, ToLongFunction<T> id,
+        long[] cutoff) {
+        return rows.stream()
+            .filter(row -> KEY_ORDER.compare(
+                new long[]{seq.applyAsLong(row), id.applyAsLong(row)}, cutoff) <= 0)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,70 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Expression;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * fields= 로 고를 수 있는 MemberTeamDto 필드와 조회 경로.
+ * <p>
+ * teamId 는 member 의 외래 키로 읽으므로 team join 이 필요 없다. team join 은 teamName 에만 필요하다.
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String fieldName;
+    private final Expression<?> path;
+    private final boolean teamRequired;
+
+    MemberField(String fieldName, Expression<?> path, boolean teamRequired) {
+        this.fieldName = fieldName;
+        this.path = path;
+        this.teamRequired = teamRequired;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Expression<?> getPath() {
+        return path;
+    }
+
+    public boolean isTeamRequired() {
+        return teamRequired;
+    }
+
+    /**
+     * 쉼표로 구분한 필드 이름. 비어 있으면 전체 필드이다.
+     *
+     * @throws IllegalArgumentException 모르는 필드 이름이 있으면
+     */
+    public static Set<MemberField> parse(String fields) {
+        Set<MemberField> result = EnumSet.noneOf(MemberField.class);
+        if (fields != null) {
+            for (String name : fields.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    result.add(of(name.trim()));
+                }
+            }
+        }
+        return result.isEmpty() ? EnumSet.allOf(MemberField.class) : result;
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("unknown field: " + fieldName);
+    }
+}
@@ -5,17 +5,28 @@ import static kirok.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
 import javax.persistence.EntityManager;
+import kirok.querydsl.deadline.Deadline;
 import kirok.querydsl.dto.MemberSearchDto;
 import kirok.querydsl.dto.MemberTeamDto;
 import kirok.querydsl.dto.QMemberTeamDto;
 import kirok.querydsl.entity.Member;
+import kirok.querydsl.memory.MemberSnapshot;
+import kirok.querydsl.memory.UsernameIndex;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
+import kirok.querydsl.repository.support.InLists;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class MemberJpaRepository {
@@ -23,11 +34,16 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSnapshot memberSnapshot;
+    private final UsernameIndex usernameIndex;
 
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberSnapshot memberSnapshot,
+        UsernameIndex usernameIndex) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = new DeadlineJPAQueryFactory(em);
+        this.memberSnapshot = memberSnapshot;
+        this.usernameIndex = usernameIndex;
     }
 
     public void save(Member member) {
@@ -38,6 +54,28 @@ public class MemberJpaRepository {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
     }
+
+    /**
+     * id 여러 개를 member.id IN 으로 읽는다. 목록은 {@link InLists} 로 나누고 채운다. 결과는 ids 순서이며 없는 id 는 빠진다.
+     * 반복문에서 findById 를 부르는 대신 쓴다. 요청 안에서 모아 부르려면 {@link MemberLoader} 를 쓴다.
+     */
+    public Map<Long, Member> findByIds(Collection<Long> ids) {
+        Map<Long, Member> found = new HashMap<>();
+        for (List<Long> chunk : InLists.chunks(new LinkedHashSet<>(ids))) {
+            for (Member row : queryFactory.selectFrom(member).where(member.id.in(chunk)).fetch()) {
+                found.put(row.getId(), row);
+            }
+        }
+
+        Map<Long, Member> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Member row = found.get(id);
+            if (row != null) {
+                result.put(id, row);
+            }
+        }
+        return result;
+    }
 //
 //    public Optional<Member> findByIdV2(Long id) {
 //
@@ -45,17 +83,20 @@ public class MemberJpaRepository {
 //
 //    }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return Deadline.apply(em.createQuery("select m from Member m", Member.class))
+            .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAllV2() {
         return queryFactory.selectFrom(member).fetch();
     }
 
     public List<Member> findByUsername(String username) {
-        return em
-            .createQuery("select m from Member m where m.username = :username", Member.class)
+        return Deadline.apply(em
+            .createQuery("select m from Member m where m.username = :username", Member.class))
             .setParameter("username", username).getResultList();
 
     }
@@ -102,8 +143,18 @@ public class MemberJpaRepository {
 
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchDto condition) {
 
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (memberSnapshot.supports(condition, Sort.unsorted())) {
+            return memberSnapshot.search(condition);
+        }
+
         return queryFactory
             .select(
                 new QMemberTeamDto(
@@ -115,87 +166,26 @@ public class MemberJpaRepository {
             )
             .from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(where.predicate())
             .fetch();
 
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanBuilder usernameEqV2(String username) {
-        return nullSafeBuilder(() -> member.username.eq(username));
-    }
-
-    private BooleanBuilder nullSafeBuilder(Supplier<BooleanExpression> f) {
-        try {
-            return new BooleanBuilder(f.get());
-        } catch (Exception e) {
-            return new BooleanBuilder();
+    @Transactional(readOnly = true)
+    public List<Member> searchMember(MemberSearchDto condition) {
 
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Collections.emptyList();
         }
-    }
-
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanBuilder teamNameEqV2(String teamName) {
-        return nullSafeBuilder(() -> team.name.eq(teamName));
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanBuilder ageGoeV2(Integer ageGoe) {
-        return nullSafeBuilder(() -> member.age.goe(ageGoe));
-
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanBuilder ageLoeV2(Integer ageLoe) {
-        return nullSafeBuilder(() -> member.age.loe(ageLoe));
-
-    }
-
-
-    public List<Member> searchMember(MemberSearchDto condition) {
-
-        return queryFactory
-            .select(member)
+        return queryFactory.select(member)
             .from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEqV2(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-            )
+            .where(where.predicate())
             .fetch();
 
     }
 
-    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
-    }
-
-    private BooleanExpression ageBetweenV2(Integer ageLoe, Integer ageGoe) {
-        try {
-            return ageLoe(ageLoe).and(ageGoe(ageGoe));
-
-        } catch (NullPointerException e) {
-            return null;
-        }
-    }
-
 }
@@ -0,0 +1,97 @@
+package kirok.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import kirok.querydsl.entity.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * 요청 단위 회원 로더(DataLoader).
+ * <p>
+ * {@link #load(Long)} 는 바로 읽지 않고 id 를 모아 두며, {@link #dispatch()} 때 모인 id 전체를
+ * {@link MemberJpaRepository#findByIds} 한 번(IN 목록 조각 수만큼)으로 읽는다. 읽은 결과와 없는 id 는 요청이 끝날 때까지
+ * 캐시에 남으므로 같은 id 는 다시 읽지 않는다. {@link #get(Long)}, {@link #getAll(Collection)} 은 모인 id 와 함께 바로
+ * dispatch 한다.
+ * <p>
+ * 반복문에서는 load 로 future 를 모은 뒤 dispatch 하고 join 한다. 요청 스레드에서만 쓴다.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class MemberLoader {
+
+    private final MemberJpaRepository memberJpaRepository;
+
+    private final Map<Long, Optional<Member>> cache = new HashMap<>();
+    private final Map<Long, CompletableFuture<Optional<Member>>> pending = new LinkedHashMap<>();
+
+    public CompletableFuture<Optional<Member>> load(Long id) {
+        Optional<Member> cached = cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+    }
+
+    public Optional<Member> get(Long id) {
+        CompletableFuture<Optional<Member>> future = load(id);
+        dispatch();
+        return future.join();
+    }
+
+    /**
+     * ids 순서대로 돌려준다. 없는 id 는 빠진다.
+     */
+    public List<Member> getAll(Collection<Long> ids) {
+        List<CompletableFuture<Optional<Member>>> futures = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            futures.add(load(id));
+        }
+        dispatch();
+
+        List<Member> result = new ArrayList<>(ids.size());
+        for (CompletableFuture<Optional<Member>> future : futures) {
+            future.join().ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * 모인 id 를 한 번에 읽고 future 를 완료한다.
+     */
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, CompletableFuture<Optional<Member>>> batch = new LinkedHashMap<>(pending);
+        pending.clear();
+
+        Map<Long, Member> found;
+        try {
+            found = memberJpaRepository.findByIds(batch.keySet());
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+        batch.forEach((id, future) -> {
+            Optional<Member> member = Optional.ofNullable(found.get(id));
+            cache.put(id, member);
+            future.complete(member);
+        });
+    }
+
+    /**
+     * 이미 가진 회원을 캐시에 넣는다.
+     */
+    public void prime(Member member) {
+        cache.put(member.getId(), Optional.of(member));
+    }
+}
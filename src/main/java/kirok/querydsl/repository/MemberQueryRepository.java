@@ -1,31 +1,59 @@
 package kirok.querydsl.repository;
 
 import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
 import static kirok.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 
-import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
+import kirok.querydsl.dto.AgeGroupCountDto;
+import kirok.querydsl.dto.MemberPageColumns;
 import kirok.querydsl.dto.MemberSearchDto;
 import kirok.querydsl.dto.MemberTeamDto;
 import kirok.querydsl.dto.QMemberTeamDto;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class MemberQueryRepository {
 
+    private static final int IN_CHUNK = 1000;
+
     private final JPAQueryFactory queryFactory;
+    private final AgeGroups ageGroups;
 
-    public MemberQueryRepository(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberQueryRepository(EntityManager em, AgeGroups ageGroups) {
+        this.queryFactory = new DeadlineJPAQueryFactory(em);
+        this.ageGroups = ageGroups;
     }
 
     public List<MemberTeamDto> search(MemberSearchDto condition) {
 
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Collections.emptyList();
+        }
+
         return queryFactory
             .select(
                 new QMemberTeamDto(
@@ -37,59 +65,287 @@ public class MemberQueryRepository {
             )
             .from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(where.predicate())
             .fetch();
 
     }
 
-    private BooleanBuilder nullSafeBuilder(Supplier<BooleanExpression> f) {
-        try {
-            return new BooleanBuilder(f.get());
-        } catch (Exception e) {
-            return new BooleanBuilder();
-
+    /**
+     * 여러 조건을 한 트랜잭션에서 조회하고 조건 순서대로 결과를 돌려준다.
+     * <p>
+     * username 외의 조건이 같은 것끼리는 username IN 쿼리 하나(IN_CHUNK 건씩)로 합치고 username 으로 다시 나눈다. 나머지
+     * 조건은 같은 조건끼리 한 번만 조회한다. 같은 조건의 결과는 같은 List 인스턴스이다.
+     */
+    @Transactional(readOnly = true)
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchDto> conditions) {
+        Map<MemberSearchDto, List<Integer>> byUsername = new LinkedHashMap<>();
+        Map<MemberSearchDto, List<Integer>> byCondition = new LinkedHashMap<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            MemberSearchDto condition = conditions.get(i);
+            if (hasText(condition.getUsername())) {
+                byUsername.computeIfAbsent(withoutUsername(condition), c -> new ArrayList<>())
+                    .add(i);
+            } else {
+                byCondition.computeIfAbsent(condition, c -> new ArrayList<>()).add(i);
+            }
         }
+
+        List<List<MemberTeamDto>> results =
+            new ArrayList<>(Collections.nCopies(conditions.size(), null));
+        byUsername.forEach((template, indexes) -> {
+            Map<String, List<MemberTeamDto>> rows = searchByUsernames(template,
+                indexes.stream().map(i -> conditions.get(i).getUsername())
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+            for (int i : indexes) {
+                results.set(i, rows.getOrDefault(conditions.get(i).getUsername(),
+                    Collections.emptyList()));
+            }
+        });
+        byCondition.forEach((condition, indexes) -> {
+            List<MemberTeamDto> rows = search(condition);
+            indexes.forEach(i -> results.set(i, rows));
+        });
+        return results;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    private Map<String, List<MemberTeamDto>> searchByUsernames(MemberSearchDto template,
+        Collection<String> usernames) {
+        Map<String, List<MemberTeamDto>> result = new HashMap<>();
+        MemberSearchPredicate where = MemberSearchPredicate.compile(template);
+        if (where.isEmpty()) {
+            return result;
+        }
+
+        List<String> values = new ArrayList<>(usernames);
+        for (int from = 0; from < values.size(); from += IN_CHUNK) {
+            List<MemberTeamDto> rows = queryFactory
+                .select(
+                    new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name)
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where.predicate(),
+                    member.username.in(values.subList(from,
+                        Math.min(from + IN_CHUNK, values.size()))))
+                .orderBy(member.id.asc())
+                .fetch();
+            for (MemberTeamDto row : rows) {
+                result.computeIfAbsent(row.getUsername(), u -> new ArrayList<>()).add(row);
+            }
+        }
+        return result;
     }
 
-    private BooleanBuilder usernameEqV2(String username) {
-        return nullSafeBuilder(() -> member.username.eq(username));
+    private static MemberSearchDto withoutUsername(MemberSearchDto condition) {
+        MemberSearchDto template = new MemberSearchDto();
+        template.setUsernameStartsWith(condition.getUsernameStartsWith());
+        template.setUsernameContains(condition.getUsernameContains());
+        template.setTeamName(condition.getTeamName());
+        template.setAgeGoe(condition.getAgeGoe());
+        template.setAgeLoe(condition.getAgeLoe());
+        template.setAgeGroup(condition.getAgeGroup());
+        return template;
     }
 
+    /**
+     * 페이지를 열 배열로 읽는다. 결과를 목록으로 모으지 않고 커서로 한 행씩 읽어 바로 열에 옮긴다. 정렬은
+     * {@link MemberSortOrders} 를 따른다. 마지막 페이지처럼 건수를 알 수 있으면 count 쿼리를 건너뛴다.
+     */
+    @Transactional(readOnly = true)
+    public MemberPageColumns searchPageColumns(MemberSearchDto condition, Pageable pageable) {
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return new MemberPageColumns(pageable.getPageNumber(), pageable.getPageSize(), 0, 0);
+        }
+
+        MemberPageColumns page = new MemberPageColumns(pageable.getPageNumber(),
+            pageable.getPageSize(), 0, pageable.getPageSize());
+        try (CloseableIterator<Tuple> rows = queryFactory
+            .select(member.id, member.username, member.age, team.id, team.name)
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(where.predicate())
+            .orderBy(MemberSortOrders.of(pageable.getSort()))
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .iterate()) {
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                page.add(row.get(member.id), row.get(member.username), row.get(member.age),
+                    row.get(team.id), row.get(team.name));
+            }
+        }
+
+        int rowCount = page.getRowCount();
+        if (rowCount < pageable.getPageSize() && (rowCount > 0 || pageable.getOffset() == 0)) {
+            page.setTotalElements(pageable.getOffset() + rowCount);
+        } else {
+            page.setTotalElements(queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where.predicate())
+                .fetchCount());
+        }
+        return page;
     }
 
-    private BooleanBuilder teamNameEqV2(String teamName) {
-        return nullSafeBuilder(() -> team.name.eq(teamName));
+    /**
+     * member_team_view 한 테이블에서 조회한다. 원본 변경은 비동기로 반영되므로 조금 늦을 수 있다.
+     */
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchView(MemberSearchDto condition, Pageable pageable) {
+
+        MemberSearchPredicate where = MemberSearchPredicate.compileView(condition, null);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<MemberTeamDto> content = queryFactory
+            .select(
+                new QMemberTeamDto(
+                    memberTeamView.memberId,
+                    memberTeamView.username,
+                    memberTeamView.age,
+                    memberTeamView.teamId,
+                    memberTeamView.teamName)
+            )
+            .from(memberTeamView)
+            .where(where.predicate())
+            .orderBy(memberTeamView.memberId.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+            .select(memberTeamView.memberId)
+            .from(memberTeamView)
+            .where(where.predicate());
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * fields 에 든 경로만 select 한다. teamName 을 고르지 않았고 조건에도 없으면 team 을 join 하지 않는다. 값이 null 인
+     * 필드는 결과 Map 에 넣지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchFields(MemberSearchDto condition,
+        Set<MemberField> fields) {
+
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Tuple> rows = fieldsQuery(condition, fields)
+            .select(paths(fields))
+            .where(where.predicate())
+            .orderBy(member.id.asc())
+            .fetch();
+        return toMaps(rows, fields);
     }
 
-    private BooleanBuilder ageGoeV2(Integer ageGoe) {
-        return nullSafeBuilder(() -> member.age.goe(ageGoe));
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> searchPageFields(MemberSearchDto condition,
+        Pageable pageable, Set<MemberField> fields) {
+
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Tuple> rows = fieldsQuery(condition, fields)
+            .select(paths(fields))
+            .where(where.predicate())
+            .orderBy(member.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+            .select(member.id)
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+        countQuery.where(where.predicate());
 
+        return PageableExecutionUtils.getPage(toMaps(rows, fields), pageable,
+            countQuery::fetchCount);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private JPAQuery<?> fieldsQuery(MemberSearchDto condition, Set<MemberField> fields) {
+        JPAQuery<?> query = queryFactory.from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else if (fields.stream().anyMatch(MemberField::isTeamRequired)) {
+            query.leftJoin(member.team, team);
+        }
+        return query;
     }
 
-    private BooleanBuilder ageLoeV2(Integer ageLoe) {
-        return nullSafeBuilder(() -> member.age.loe(ageLoe));
+    private static Expression<?>[] paths(Set<MemberField> fields) {
+        return fields.stream().map(MemberField::getPath).toArray(Expression<?>[]::new);
+    }
 
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, Set<MemberField> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            if (row == null) {
+                // 필드 하나만 골랐고 그 값이 null 이면 행 자체가 null 이다.
+                result.add(map);
+                continue;
+            }
+            int i = 0;
+            for (MemberField field : fields) {
+                Object value = row.get(i++, Object.class);
+                if (value != null) {
+                    map.put(field.getFieldName(), value);
+                }
+            }
+            result.add(map);
+        }
+        return result;
     }
 
+    /**
+     * 나이 구간별 회원 수. 저장된 age_group 으로 묶으므로 행마다 CASE 를 계산하지 않는다. 회원이 없는 구간은 빠진다.
+     */
+    @Transactional(readOnly = true)
+    public List<AgeGroupCountDto> countByAgeGroup(MemberSearchDto condition) {
+
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        JPAQuery<Tuple> query = queryFactory
+            .select(member.ageGroup, member.count())
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+        List<Tuple> rows = query
+            .where(where.predicate(), member.ageGroup.isNotNull())
+            .groupBy(member.ageGroup)
+            .orderBy(member.ageGroup.asc())
+            .fetch();
+
+        List<AgeGroupCountDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            int ageGroup = row.get(member.ageGroup);
+            result.add(new AgeGroupCountDto(ageGroup, ageGroups.label(ageGroup),
+                row.get(member.count())));
+        }
+        return result;
+    }
 
 }
@@ -2,54 +2,76 @@ package kirok.querydsl.repository;
 
 import static kirok.querydsl.entity.QMember.member;
 import static kirok.querydsl.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
-import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.Map;
 import javax.persistence.EntityManager;
 import kirok.querydsl.dto.MemberSearchDto;
 import kirok.querydsl.dto.MemberTeamDto;
 import kirok.querydsl.dto.QMemberTeamDto;
 import kirok.querydsl.entity.Member;
+import kirok.querydsl.memory.MemberAgeIndex;
+import kirok.querydsl.memory.MemberBitmapIndex;
+import kirok.querydsl.memory.MemberSnapshot;
+import kirok.querydsl.memory.UsernameIndex;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
     MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberSnapshot memberSnapshot;
+    private final MemberAgeIndex memberAgeIndex;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final UsernameIndex usernameIndex;
 //
 //    public MemberRepositoryImpl(EntityManager em) {
 //        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberSnapshot memberSnapshot,
+        MemberAgeIndex memberAgeIndex, MemberBitmapIndex memberBitmapIndex,
+        UsernameIndex usernameIndex) {
         super(Member.class);
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = new DeadlineJPAQueryFactory(em);
+        this.memberSnapshot = memberSnapshot;
+        this.memberAgeIndex = memberAgeIndex;
+        this.memberBitmapIndex = memberBitmapIndex;
+        this.usernameIndex = usernameIndex;
     }
 
 
+    @Transactional(readOnly = true)
     @Override
     public List<MemberTeamDto> search(MemberSearchDto condition) {
 
-        return from(member)
-            .leftJoin(member)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (memberSnapshot.supports(condition, Sort.unsorted())) {
+            return memberSnapshot.search(condition);
+        }
+
+        return queryFactory.from(member)
+            .leftJoin(member.team, team)
+            .where(where.predicate())
             .select(
                 new QMemberTeamDto(
                     member.id,
@@ -60,29 +82,21 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
             )
             .fetch();
 
-//        return queryFactory
-//            .select(
-//                new QMemberTeamDto(
-//                    member.id,
-//                    member.username,
-//                    member.age,
-//                    team.id,
-//                    team.name)
-//            )
-//            .from(member)
-//            .leftJoin(member.team, team)
-//            .where(
-//                usernameEq(condition.getUsername()),
-//                teamNameEq(condition.getTeamName()),
-//                ageGoe(condition.getAgeGoe()),
-//                ageLoe(condition.getAgeLoe())
-//            )
-//            .fetch();
-
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchDto condition, Pageable pageable) {
+
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (memberSnapshot.supports(condition, pageable.getSort())) {
+            return memberSnapshot.searchPage(condition, pageable);
+        }
+
         QueryResults<MemberTeamDto> results = queryFactory
             .select(
                 new QMemberTeamDto(
@@ -94,12 +108,8 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
             )
             .from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(where.predicate())
+            .orderBy(MemberSortOrders.of(pageable.getSort()))
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize())
             .fetchResults();
@@ -110,15 +120,18 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
         return new PageImpl<>(content, pageable, total);
     }
 
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple2(MemberSearchDto condition, Pageable pageable) {
-        JPQLQuery<MemberTeamDto> jpaQuery = from(member)
+
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        JPQLQuery<MemberTeamDto> jpaQuery = queryFactory.from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(where.predicate())
             .select(
                 new QMemberTeamDto(
                     member.id,
@@ -138,9 +151,29 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
         return new PageImpl<>(content, pageable, total);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchDto condition, Pageable pageable) {
 
+        MemberSearchPredicate where =
+            MemberSearchPredicate.compile(condition, usernameIndex.candidates(condition));
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (memberSnapshot.supports(condition, pageable.getSort())) {
+            return memberSnapshot.searchPage(condition, pageable);
+        }
+        if (isAgeIndexPage(condition, pageable)) {
+            return searchPageByAgeIndex(condition, pageable);
+        }
+        if (pageable.isPaged() && pageable.getSort().isUnsorted()
+            && memberBitmapIndex.supports(condition)) {
+            long[] ids = memberBitmapIndex.ids(condition, pageable.getOffset(),
+                pageable.getPageSize());
+            return PageableExecutionUtils.getPage(fetchInOrder(ids), pageable,
+                () -> memberBitmapIndex.count(condition));
+        }
+
         List<MemberTeamDto> content = queryFactory
             .select(
                 new QMemberTeamDto(
@@ -152,12 +185,8 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
             )
             .from(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(where.predicate())
+            .orderBy(MemberSortOrders.of(pageable.getSort()))
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize())
             .fetch();
@@ -165,62 +194,86 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements
         JPAQuery<Member> countQuery = queryFactory
             .selectFrom(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            );
+            .where(where.predicate());
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition, countQuery));
 
 //        return new PageImpl<>(content, pageable, total);
 
     }
 
-    private BooleanBuilder nullSafeBuilder(Supplier<BooleanExpression> f) {
-        try {
-            return new BooleanBuilder(f.get());
-        } catch (Exception e) {
-            return new BooleanBuilder();
-
+    /**
+     * 나이 조건만 있으면 나이 인덱스로, username 조건이 없으면 비트맵 인덱스로 건수를 센다.
+     */
+    private long count(MemberSearchDto condition, JPAQuery<?> countQuery) {
+        if (MemberSearchPredicate.isAgeOnly(condition) && memberAgeIndex.isAvailable()) {
+            return memberAgeIndex.count(condition.getAgeGoe(), condition.getAgeLoe());
         }
+        if (memberBitmapIndex.supports(condition)) {
+            return memberBitmapIndex.count(condition);
+        }
+        return countQuery.fetchCount();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanBuilder usernameEqV2(String username) {
-        return nullSafeBuilder(() -> member.username.eq(username));
-    }
-
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanBuilder teamNameEqV2(String teamName) {
-        return nullSafeBuilder(() -> team.name.eq(teamName));
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private boolean isAgeIndexPage(MemberSearchDto condition, Pageable pageable) {
+        if (pageable.isUnpaged() || !MemberSearchPredicate.isAgeOnly(condition)
+            || !memberAgeIndex.isAvailable()) {
+            return false;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals("age");
     }
 
-    private BooleanBuilder ageGoeV2(Integer ageGoe) {
-        return nullSafeBuilder(() -> member.age.goe(ageGoe));
-
+    /**
+     * 나이 순 페이지의 id 를 인덱스에서 잘라 온 뒤 id IN 조회로 채운다.
+     */
+    private Page<MemberTeamDto> searchPageByAgeIndex(MemberSearchDto condition,
+        Pageable pageable) {
+        boolean descending = pageable.getSort().toList().get(0).isDescending();
+        long[] ids = memberAgeIndex.ids(condition.getAgeGoe(), condition.getAgeLoe(),
+            pageable.getOffset(), pageable.getPageSize(), descending);
+
+        return PageableExecutionUtils.getPage(fetchInOrder(ids), pageable,
+            () -> memberAgeIndex.count(condition.getAgeGoe(), condition.getAgeLoe()));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
+    /**
+     * id IN 조회 한 번으로 채우고 ids 순서대로 다시 맞춘다.
+     */
+    private List<MemberTeamDto> fetchInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
 
-    private BooleanBuilder ageLoeV2(Integer ageLoe) {
-        return nullSafeBuilder(() -> member.age.loe(ageLoe));
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, MemberTeamDto> byId = new HashMap<>(ids.length * 2);
+        for (MemberTeamDto dto : queryFactory
+            .select(
+                new QMemberTeamDto(
+                    member.id,
+                    member.username,
+                    member.age,
+                    team.id,
+                    team.name)
+            )
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(member.id.in(idList))
+            .fetch()) {
+            byId.put(dto.getMemberId(), dto);
+        }
 
+        List<MemberTeamDto> content = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            MemberTeamDto dto = byId.get(id);
+            if (dto != null) {
+                content.add(dto);
+            }
+        }
+        return content;
     }
 
-
 }
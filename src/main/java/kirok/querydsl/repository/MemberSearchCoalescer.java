@@ -0,0 +1,110 @@
+package kirok.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.deadline.Deadline;
+import kirok.querydsl.deadline.DeadlineExceededException;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.memory.SnapshotReads;
+import kirok.querydsl.repository.support.SingleFlight;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * MemberRepositoryCustom 앞에서 같은 검색을 합친다. 키는 메서드, 정규화한 조건, 페이지이다.
+ * <p>
+ * 요청마다 예산이 다르므로 기다리는 호출은 자기 {@link Deadline} 까지만 기다리고, leader 가 자기 마감이나 쿼리 타임아웃으로
+ * 실패하면 그 예외를 받지 않고 자기 예산으로 직접 실행한다.
+ * <p>
+ * 트랜잭션 경계 바깥에서 합쳐야 기다리는 호출이 커넥션을 잡지 않는다. 호출자가 읽기/쓰기 트랜잭션 안에 있거나 이번 요청에서
+ * 이미 쓰기를 했으면 남의 결과가 자기 쓰기를 못 볼 수 있으므로 합치지 않는다.
+ */
+@Component
+public class MemberSearchCoalescer implements MemberRepositoryCustom {
+
+    private final MemberRepository memberRepository;
+    private final SingleFlight<SearchKey, Object> singleFlight;
+
+    @Value("${member.single-flight.enabled:false}")
+    private boolean enabled;
+
+    public MemberSearchCoalescer(MemberRepository memberRepository,
+        MeterRegistry meterRegistry,
+        @Value("${member.single-flight.timeout-ms:2000}") long timeoutMillis) {
+        this.memberRepository = memberRepository;
+        this.singleFlight = new SingleFlight<>("member.search.single.flight",
+            Duration.ofMillis(timeoutMillis), meterRegistry, MemberSearchCoalescer::timedOut);
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchDto condition) {
+        return execute(new SearchKey("search", condition, null),
+            () -> memberRepository.search(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchDto condition, Pageable pageable) {
+        return execute(new SearchKey("searchPageSimple", condition, pageable),
+            () -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchDto condition, Pageable pageable) {
+        return execute(new SearchKey("searchPageComplex", condition, pageable),
+            () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T execute(SearchKey key, Supplier<T> call) {
+        if (!enabled || !SnapshotReads.allowed() || ReadYourWrites.hasWritten()) {
+            return call.get();
+        }
+        return (T) singleFlight.execute(key, call::get, Deadline.remaining());
+    }
+
+    private static boolean timedOut(Throwable e) {
+        return e instanceof DeadlineExceededException
+            || e instanceof org.springframework.dao.QueryTimeoutException
+            || e instanceof javax.persistence.QueryTimeoutException;
+    }
+
+    /**
+     * 빈 문자열은 조건이 없는 것과 같으므로 null 로 맞춘다.
+     */
+    @EqualsAndHashCode
+    @ToString
+    static final class SearchKey {
+
+        private final String method;
+        private final MemberSearchDto condition;
+        private final Pageable pageable;
+
+        SearchKey(String method, MemberSearchDto condition, Pageable pageable) {
+            MemberSearchDto normalized = new MemberSearchDto();
+            normalized.setUsername(normalize(condition.getUsername()));
+            normalized.setUsernameStartsWith(normalize(condition.getUsernameStartsWith()));
+            normalized.setUsernameContains(normalize(condition.getUsernameContains()));
+            normalized.setTeamName(normalize(condition.getTeamName()));
+            normalized.setAgeGoe(condition.getAgeGoe());
+            normalized.setAgeLoe(condition.getAgeLoe());
+            normalized.setAgeGroup(condition.getAgeGroup());
+            this.method = method;
+            this.condition = normalized;
+            this.pageable = pageable;
+        }
+
+        private static String normalize(String value) {
+            return hasText(value) ? value : null;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import java.util.List;
+import kirok.querydsl.dto.MemberSearchDto;
+
+/**
+ * MemberSearchDto 를 where 절에 넣을 하나의 Predicate 로 컴파일한다.
+ * <p>
+ * 예외를 잡아 빈 BooleanBuilder 를 만드는 대신 null 검사로 필요한 조건만 만들고, 조건이 없거나 나이 범위가 불가능한 경우에는
+ * 미리 만들어 둔 불변 인스턴스를 돌려준다. ageGoe > ageLoe 이면 {@link #isEmpty()} 가 true 이므로 질의하지 않고 빈 결과를
+ * 돌려주면 된다.
+ * <p>
+ * 같은 조건을 member + team join 과 member_team_view 두 대상에 컴파일할 수 있다.
+ */
+public final class MemberSearchPredicate {
+
+    private static final MemberSearchPredicate ALL = new MemberSearchPredicate(null, false);
+
+    private static final Target MEMBER_TEAM =
+        new Target(member.id, member.username, member.age, member.ageGroup, team.name);
+
+    private static final Target VIEW = new Target(memberTeamView.memberId,
+        memberTeamView.username, memberTeamView.age, memberTeamView.ageGroup,
+        memberTeamView.teamName);
+
+    private final Predicate predicate;
+    private final boolean empty;
+
+    private MemberSearchPredicate(Predicate predicate, boolean empty) {
+        this.predicate = predicate;
+        this.empty = empty;
+    }
+
+    public static MemberSearchPredicate compile(MemberSearchDto condition) {
+        return compile(condition, null);
+    }
+
+    /**
+     * usernameCandidates 가 있으면 usernameStartsWith, usernameContains 조건을 LIKE 대신 id IN 으로 바꾼다. 후보는
+     * username 인덱스가 찾은 id 이며, 비어 있으면 질의하지 않는다.
+     */
+    public static MemberSearchPredicate compile(MemberSearchDto condition,
+        List<Long> usernameCandidates) {
+        return compile(MEMBER_TEAM, condition, usernameCandidates);
+    }
+
+    /**
+     * member_team_view 대상. join 없이 member_team_view 한 테이블에 건다.
+     */
+    public static MemberSearchPredicate compileView(MemberSearchDto condition,
+        List<Long> usernameCandidates) {
+        return compile(VIEW, condition, usernameCandidates);
+    }
+
+    private static MemberSearchPredicate compile(Target target, MemberSearchDto condition,
+        List<Long> usernameCandidates) {
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+            return target.none;
+        }
+        if (usernameCandidates != null && usernameCandidates.isEmpty()) {
+            return target.none;
+        }
+
+        Predicate predicate = null;
+        if (hasText(condition.getUsername())) {
+            predicate = target.username.eq(condition.getUsername());
+        }
+        if (usernameCandidates != null) {
+            predicate = and(predicate, target.id.in(usernameCandidates));
+        } else {
+            if (hasText(condition.getUsernameStartsWith())) {
+                predicate = and(predicate,
+                    target.username.startsWith(condition.getUsernameStartsWith()));
+            }
+            if (hasText(condition.getUsernameContains())) {
+                predicate = and(predicate,
+                    target.username.contains(condition.getUsernameContains()));
+            }
+        }
+        if (hasText(condition.getTeamName())) {
+            predicate = and(predicate, target.teamName.eq(condition.getTeamName()));
+        }
+        predicate = and(predicate, ageRange(target, ageGoe, ageLoe));
+        if (condition.getAgeGroup() != null) {
+            predicate = and(predicate, target.ageGroup.eq(condition.getAgeGroup()));
+        }
+
+        return predicate == null ? ALL : new MemberSearchPredicate(predicate, false);
+    }
+
+    /**
+     * 나이 조건 외에는 조건이 없으면 true. 나이 인덱스만으로 답할 수 있다.
+     */
+    public static boolean isAgeOnly(MemberSearchDto condition) {
+        return !hasUsernameFilter(condition) && !hasText(condition.getTeamName())
+            && !hasAgeGroupFilter(condition);
+    }
+
+    /**
+     * ageGroup 은 DB 컬럼에만 있으므로 메모리 구조는 이 조건이 있으면 쓰지 않는다.
+     */
+    public static boolean hasAgeGroupFilter(MemberSearchDto condition) {
+        return condition.getAgeGroup() != null;
+    }
+
+    /**
+     * username, usernameStartsWith, usernameContains 중 하나라도 있으면 true.
+     */
+    public static boolean hasUsernameFilter(MemberSearchDto condition) {
+        return hasText(condition.getUsername())
+            || hasText(condition.getUsernameStartsWith())
+            || hasText(condition.getUsernameContains());
+    }
+
+    private static Predicate ageRange(Target target, Integer ageGoe, Integer ageLoe) {
+        if (ageGoe != null && ageLoe != null) {
+            return ageGoe.equals(ageLoe) ? target.age.eq(ageGoe)
+                : target.age.between(ageGoe, ageLoe);
+        }
+        if (ageGoe != null) {
+            return target.age.goe(ageGoe);
+        }
+        if (ageLoe != null) {
+            return target.age.loe(ageLoe);
+        }
+        return null;
+    }
+
+    private static Predicate and(Predicate left, Predicate right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return ExpressionUtils.and(left, right);
+    }
+
+    /**
+     * where 절에 그대로 넘긴다. 조건이 없으면 null 이며 Querydsl 은 null 조건을 무시한다.
+     */
+    public Predicate predicate() {
+        return predicate;
+    }
+
+    /**
+     * 결과가 항상 비어 있으면 true. 이 경우 질의할 필요가 없다.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * 조건을 걸 경로 묶음.
+     */
+    private static final class Target {
+
+        private final NumberPath<Long> id;
+        private final StringPath username;
+        private final NumberPath<Integer> age;
+        private final NumberPath<Integer> ageGroup;
+        private final StringPath teamName;
+
+        /**
+         * id 는 PK 라 null 일 수 없다. isEmpty() 를 확인하지 않고 질의해도 결과가 비도록 한다.
+         */
+        private final MemberSearchPredicate none;
+
+        private Target(NumberPath<Long> id, StringPath username, NumberPath<Integer> age,
+            NumberPath<Integer> ageGroup, StringPath teamName) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.ageGroup = ageGroup;
+            this.teamName = teamName;
+            this.none = new MemberSearchPredicate(id.isNull(), true);
+        }
+    }
+}
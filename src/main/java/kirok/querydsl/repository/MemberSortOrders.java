@@ -0,0 +1,66 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+
+/**
+ * MemberTeamDto 페이지의 Pageable 정렬을 member ⨝ team 의 ORDER BY 로 바꾼다.
+ * <p>
+ * 메모리 스냅샷({@link kirok.querydsl.memory.MemberSnapshot})과 같은 순서를 내도록 null 은 오름차순에서 처음, 내림차순에서 마지막에
+ * 두고 마지막에 member_id 오름차순을 붙인다. 모르는 속성은 무시한다.
+ */
+public final class MemberSortOrders {
+
+    public static final List<String> SORTABLE =
+        Arrays.asList("id", "memberId", "username", "age", "teamId", "teamName");
+
+    private MemberSortOrders() {
+    }
+
+    public static boolean supports(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static OrderSpecifier<?>[] of(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = pathOf(order.getProperty());
+            if (path == null) {
+                continue;
+            }
+            orders.add(order.isAscending() ? path.asc().nullsFirst() : path.desc().nullsLast());
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private static ComparableExpressionBase<?> pathOf(String property) {
+        switch (property) {
+            case "id":
+            case "memberId":
+                return member.id;
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            case "teamId":
+                return team.id;
+            case "teamName":
+                return team.name;
+            default:
+                return null;
+        }
+    }
+}
@@ -2,22 +2,40 @@ package kirok.querydsl.repository;
 
 import static kirok.querydsl.entity.QMember.member;
 import static kirok.querydsl.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import java.util.List;
+import java.util.function.Consumer;
 import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.dto.QMemberTeamDto;
 import kirok.querydsl.entity.Member;
+import kirok.querydsl.repository.support.FetchPlan;
 import kirok.querydsl.repository.support.Querydsl4RepositorySupport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
+    /**
+     * 팀을 IN 쿼리 한 번으로 채운다. 페이지 조회는 본문 + 팀 두 번이다.
+     */
+    public static final FetchPlan WITH_TEAM = FetchPlan.batch(member.team);
+
+    /**
+     * 팀을 본문 쿼리에서 join 으로 함께 읽는다.
+     */
+    public static final FetchPlan WITH_TEAM_GRAPH = FetchPlan.graph(Member.GRAPH_TEAM);
+
+    private static final int SCAN_FETCH_SIZE = 500;
+
     public MemberTestRepository() {
         super(Member.class);
     }
@@ -31,78 +49,144 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<Member> searchPageByApplyPage(MemberSearchDto condition, Pageable pageable) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
         JPAQuery<Member> query = selectFrom(member)
             .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            );
+            .where(where.predicate());
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
         return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
     }
 
     public Page<Member> applyPagination(MemberSearchDto condition, Pageable pageable) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
 
         return applyPagination(pageable, query ->
             query
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(
-                    usernameEq(condition.getUsername()),
-                    teamNameEq(condition.getTeamName()),
-                    ageGoe(condition.getAgeGoe()),
-                    ageLoe(condition.getAgeLoe())
-                )
+                .where(where.predicate())
         );
 
     }
 
     public Page<Member> applyPaginationV2(MemberSearchDto condition, Pageable pageable) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
 
         return applyPagination(
             pageable,
             contentQuery -> contentQuery
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(
-                    usernameEq(condition.getUsername()),
-                    teamNameEq(condition.getTeamName()),
-                    ageGoe(condition.getAgeGoe()),
-                    ageLoe(condition.getAgeLoe())
-                ),
+                .where(where.predicate()),
             countQuery -> countQuery
                 .select(member.id)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                    usernameEq(condition.getUsername()),
-                    teamNameEq(condition.getTeamName()),
-                    ageGoe(condition.getAgeGoe()),
-                    ageLoe(condition.getAgeLoe())
-                )
+                .where(where.predicate())
         );
 
     }
 
+    public Page<Member> searchPage(MemberSearchDto condition, Pageable pageable,
+        FetchPlan fetchPlan) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+        return applyPagination(
+            pageable,
+            fetchPlan,
+            contentQuery -> teamJoinIfNeeded(contentQuery.selectFrom(member), condition)
+                .where(where.predicate()),
+            countQuery -> teamJoinIfNeeded(countQuery.select(member.id).from(member), condition)
+                .where(where.predicate())
+        );
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    /**
+     * teamName 조건이 있을 때만 팀을 join 한다. 팀 로딩은 FetchPlan 이 맡는다.
+     */
+    private static <T> JPAQuery<T> teamJoinIfNeeded(JPAQuery<T> query,
+        MemberSearchDto condition) {
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return query;
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * 조건에 맞는 회원을 StatelessSession 으로 흘려 보낸다. 팀은 fetch join 으로 함께 읽는다. 조건이 없거나 나이 조건만
+     * 있으면 id 구간으로 나누어 병렬로 읽는다. 어느 쪽이든 id 순서이다.
+     */
+    public long scanMembers(MemberSearchDto condition, Consumer<Member> consumer) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return 0;
+        }
+
+        if (MemberSearchPredicate.isAgeOnly(condition)) {
+            return parallelScan(member.id, idRanges(member, member.id, where.predicate()),
+                SCAN_FETCH_SIZE, (query, range) -> query
+                    .select(member)
+                    .from(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(where.predicate(), range)
+                    .orderBy(member.id.asc()),
+                consumer);
+        }
+        return scan(query -> query
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(where.predicate())
+                .orderBy(member.id.asc()),
+            SCAN_FETCH_SIZE, consumer);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 내보내기용. scanMembers 와 같은 방식으로 MemberTeamDto 를 id 순서대로 흘려 보낸다.
+     */
+    public long exportMembers(MemberSearchDto condition, Consumer<MemberTeamDto> consumer) {
+        MemberSearchPredicate where = MemberSearchPredicate.compile(condition);
+        if (where.isEmpty()) {
+            return 0;
+        }
+
+        if (MemberSearchPredicate.isAgeOnly(condition)) {
+            return parallelScan(member.id, idRanges(member, member.id, where.predicate()),
+                SCAN_FETCH_SIZE, (query, range) -> exportQuery(query)
+                    .where(where.predicate(), range)
+                    .orderBy(member.id.asc()),
+                consumer);
+        }
+        return scan(query -> exportQuery(query)
+                .where(where.predicate())
+                .orderBy(member.id.asc()),
+            SCAN_FETCH_SIZE, consumer);
     }
 
+    private static HibernateQuery<MemberTeamDto> exportQuery(HibernateQuery<?> query) {
+        return query
+            .select(new QMemberTeamDto(
+                member.id,
+                member.username,
+                member.age,
+                team.id,
+                team.name))
+            .from(member)
+            .leftJoin(member.team, team);
+    }
 
 }
@@ -0,0 +1,80 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.TeamMembersDto;
+import kirok.querydsl.memory.LongIntHashMap;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 팀 페이지와 소속 회원 조회.
+ * <p>
+ * 컬렉션 fetch join 은 팀 행이 회원 수만큼 불어나서 DB 페이징이 안 되고, team.members 지연 로딩은 팀마다 쿼리가 나간다. 여기서는
+ * 팀을 먼저 페이징하고, 그 팀들의 회원을 team_id IN 쿼리(1000 개 단위)로 한 번에 읽어 team_id → 페이지 내 위치 맵으로
+ * 나눠 담는다.
+ */
+@Repository
+public class TeamQueryRepository {
+
+    private static final int IN_CHUNK = 1000;
+    private static final int MISSING = -1;
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamQueryRepository(EntityManager em) {
+        this.queryFactory = new DeadlineJPAQueryFactory(em);
+    }
+
+    /**
+     * 팀은 id 순이고 팀 안의 회원도 id 순이다.
+     */
+    @Transactional(readOnly = true)
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = queryFactory
+            .select(team.id, team.name)
+            .from(team)
+            .orderBy(team.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        List<TeamMembersDto> content = new ArrayList<>(teams.size());
+        List<Long> teamIds = new ArrayList<>(teams.size());
+        LongIntHashMap positionByTeamId = new LongIntHashMap(teams.size(), MISSING);
+        for (Tuple row : teams) {
+            Long teamId = row.get(team.id);
+            positionByTeamId.put(teamId, content.size());
+            content.add(new TeamMembersDto(teamId, row.get(team.name)));
+            teamIds.add(teamId);
+        }
+
+        for (int from = 0; from < teamIds.size(); from += IN_CHUNK) {
+            List<Tuple> members = queryFactory
+                .select(member.team.id, member.id, member.username, member.age)
+                .from(member)
+                .where(member.team.id.in(
+                    teamIds.subList(from, Math.min(from + IN_CHUNK, teamIds.size()))))
+                .orderBy(member.id.asc())
+                .fetch();
+            for (Tuple row : members) {
+                content.get(positionByTeamId.get(row.get(member.team.id)))
+                    .addMember(row.get(member.id), row.get(member.username),
+                        row.get(member.age));
+            }
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable,
+            () -> queryFactory.select(team.id).from(team).fetchCount());
+    }
+}
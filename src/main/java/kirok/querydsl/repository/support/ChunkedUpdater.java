@@ -0,0 +1,57 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.function.BiFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 테이블 전체 벌크 update 를 id 범위로 나눠 범위마다 별도 트랜잭션으로 실행한다.
+ * <p>
+ * 한 번에 잡는 행 잠금과 undo 양이 chunkSize 로 제한되고, 중간에 실패해도 끝난 범위는 남는다. 범위 update 는 같은 범위를 두 번
+ * 실행해도 결과가 같게 작성한다.
+ */
+@Slf4j
+@Component
+public class ChunkedUpdater {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate tx;
+
+    public ChunkedUpdater(JPAQueryFactory queryFactory,
+        PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @param rangeUpdate from, to(둘 다 포함) 범위의 update 를 실행하고 바뀐 행 수를 돌려준다
+     * @return 바뀐 행 수 합계
+     */
+    public long update(EntityPath<?> entity, NumberPath<Long> id, int chunkSize,
+        BiFunction<Long, Long, Long> rangeUpdate) {
+        Tuple bounds = queryFactory.select(id.min(), id.max()).from(entity).fetchOne();
+        Long min = bounds == null ? null : bounds.get(id.min());
+        Long max = bounds == null ? null : bounds.get(id.max());
+        if (min == null || max == null) {
+            return 0;
+        }
+
+        long updated = 0;
+        for (long from = min; from <= max; from += chunkSize) {
+            long start = from;
+            long end = Math.min(max, from + chunkSize - 1);
+            Long count = tx.execute(status -> rangeUpdate.apply(start, end));
+            updated += count == null ? 0 : count;
+        }
+        log.info("chunked update on {}: {} rows in [{}, {}]", entity, updated, min, max);
+        return updated;
+    }
+}
@@ -0,0 +1,37 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import kirok.querydsl.deadline.Deadline;
+
+/**
+ * fetch, fetchCount 등으로 JPA 쿼리를 만들 때마다 요청에 남은 시간을 타임아웃으로 붙이는 JPAQuery.
+ */
+public class DeadlineJPAQuery<T> extends JPAQuery<T> {
+
+    public DeadlineJPAQuery(EntityManager entityManager) {
+        super(entityManager);
+    }
+
+    public DeadlineJPAQuery(EntityManager entityManager, JPQLTemplates templates,
+        QueryMetadata metadata) {
+        super(entityManager, templates, metadata);
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return Deadline.apply(super.createQuery(modifiers, forCount));
+    }
+
+    @Override
+    public DeadlineJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        DeadlineJPAQuery<T> query =
+            new DeadlineJPAQuery<>(entityManager, templates, getMetadata().clone());
+        query.clone(this);
+        return query;
+    }
+}
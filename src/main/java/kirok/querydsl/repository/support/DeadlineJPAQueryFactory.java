@@ -0,0 +1,46 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+
+/**
+ * select, selectFrom 등이 {@link DeadlineJPAQuery} 를 만드는 JPAQueryFactory. update, delete 절에는 마감을 걸지 않는다.
+ * <p>
+ * Member, Team 대상 update, delete 는 실행 후 {@link kirok.querydsl.version.DataVersion} 을 올린다.
+ */
+public class DeadlineJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+
+    public DeadlineJPAQueryFactory(EntityManager entityManager) {
+        super(entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new DeadlineJPAQuery<Void>(entityManager);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return versioned(path) ? new VersionedJPAUpdateClause(entityManager, path)
+            : super.update(path);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return versioned(path) ? new VersionedJPADeleteClause(entityManager, path)
+            : super.delete(path);
+    }
+
+    private static boolean versioned(EntityPath<?> path) {
+        return path.getType() == Member.class || path.getType() == Team.class;
+    }
+}
@@ -0,0 +1,58 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * 조회 결과와 함께 읽을 연관관계 목록.
+ * <ul>
+ *     <li>graph: @NamedEntityGraph 이름. 본문 쿼리에 javax.persistence.fetchgraph 힌트로 붙어 join 으로 함께 읽는다.</li>
+ *     <li>batch: 본문을 읽은 뒤 연관 프록시의 id 를 모아 IN 쿼리 한 번으로 채운다. 행 수와 관계없이 쿼리가 하나 늘어난다.</li>
+ * </ul>
+ * 어느 쪽이든 count 쿼리에는 적용되지 않는다. 자주 쓰는 조합은 상수로 이름을 붙여 둔다.
+ */
+@Getter
+public final class FetchPlan {
+
+    private static final FetchPlan NONE = new FetchPlan(null, Collections.emptyList());
+
+    private final String entityGraph;
+    private final List<String> batchAssociations;
+
+    private FetchPlan(String entityGraph, List<String> batchAssociations) {
+        this.entityGraph = entityGraph;
+        this.batchAssociations = batchAssociations;
+    }
+
+    public static FetchPlan none() {
+        return NONE;
+    }
+
+    public static FetchPlan graph(String entityGraph) {
+        Assert.hasText(entityGraph, "Entity graph name must not be empty!");
+        return new FetchPlan(entityGraph, Collections.emptyList());
+    }
+
+    /**
+     * 루트 엔티티의 ToOne 연관관계(예: member.team)를 IN 으로 읽는다.
+     */
+    public static FetchPlan batch(Path<?>... associations) {
+        return NONE.andBatch(associations);
+    }
+
+    public FetchPlan andBatch(Path<?>... associations) {
+        List<String> names = new ArrayList<>(batchAssociations);
+        for (Path<?> association : associations) {
+            Path<?> parent = association.getMetadata().getParent();
+            Assert.isTrue(parent != null && parent.getMetadata().isRoot(),
+                "Only direct associations of the root entity can be batch loaded: "
+                    + association);
+            names.add(association.getMetadata().getName());
+        }
+        return new FetchPlan(entityGraph, Collections.unmodifiableList(names));
+    }
+}
@@ -0,0 +1,62 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * id 구간 [from, to). 구간은 서로 겹치지 않고 id 순서대로 나열된다.
+ */
+@Getter
+@ToString
+public final class IdRange {
+
+    private final long from;
+    private final long to;
+
+    public IdRange(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public Predicate predicate(NumberPath<Long> id) {
+        return id.goe(from).and(id.lt(to));
+    }
+
+    /**
+     * [min, max] 를 폭이 같은 parts 개 구간으로 나눈다. id 가 고르게 퍼져 있을 때 쓴다.
+     */
+    public static List<IdRange> split(long min, long max, int parts) {
+        List<IdRange> ranges = new ArrayList<>(parts);
+        if (max < min) {
+            return ranges;
+        }
+        long width = Math.max(1, (max - min) / parts + 1);
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new IdRange(from, Math.min(from + width, max + 1)));
+        }
+        return ranges;
+    }
+
+    /**
+     * 정렬된 경계값으로 [min, max] 를 나눈다. 경계는 표본에서 얻은 분위수이며 [min, max] 밖이거나 겹치는 값은 버린다.
+     */
+    public static List<IdRange> fromBoundaries(long min, long max, List<Long> boundaries) {
+        List<IdRange> ranges = new ArrayList<>(boundaries.size() + 1);
+        if (max < min) {
+            return ranges;
+        }
+        long from = min;
+        for (Long boundary : boundaries) {
+            if (boundary > from && boundary <= max) {
+                ranges.add(new IdRange(from, boundary));
+                from = boundary;
+            }
+        }
+        ranges.add(new IdRange(from, max + 1));
+        return ranges;
+    }
+}
@@ -0,0 +1,48 @@
+package kirok.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * IN 목록 나누기와 채우기.
+ * <p>
+ * IN 목록 길이가 다르면 SQL 문자열도 달라서 Hibernate 쿼리 계획 캐시와 DB 실행 계획 캐시를 매번 새로 채운다. 길이를 2 의
+ * 거듭제곱(최대 MAX_SIZE)으로 맞추면 SQL 모양이 10 가지로 줄어든다. 빈 자리는 마지막 값을 반복해 채우므로 결과는 같다.
+ */
+public final class InLists {
+
+    public static final int MAX_SIZE = 512;
+
+    private InLists() {
+    }
+
+    /**
+     * MAX_SIZE 건씩 나누고 각 조각을 {@link #pad(List)} 한다.
+     */
+    public static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>((list.size() + MAX_SIZE - 1) / MAX_SIZE);
+        for (int from = 0; from < list.size(); from += MAX_SIZE) {
+            chunks.add(pad(list.subList(from, Math.min(from + MAX_SIZE, list.size()))));
+        }
+        return chunks;
+    }
+
+    public static <T> List<T> pad(List<T> values) {
+        if (values.isEmpty()) {
+            return values;
+        }
+        int size = Integer.highestOneBit(values.size());
+        if (size < values.size()) {
+            size <<= 1;
+        }
+        List<T> padded = new ArrayList<>(size);
+        padded.addAll(values);
+        T last = values.get(values.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
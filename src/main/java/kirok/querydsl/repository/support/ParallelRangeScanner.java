@@ -0,0 +1,247 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.persistence.EntityManagerFactory;
+import kirok.querydsl.deadline.Deadline;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * id 구간별 병렬 스캔.
+ * <p>
+ * 구간마다 작업 스레드 하나가 StatelessSession(커넥션 하나)으로 스크롤하며 구간 전용 버퍼에 행을 넣고, 호출 스레드는 구간
+ * 순서대로 버퍼를 비운다. 구간이 id 순이므로 구간 안에서 id 로 정렬하면 전체 결과도 id 순이다. 버퍼가 차면 작업 스레드가
+ * 기다리므로 메모리는 구간 수 * buffer-size 행을 넘지 않는다. 느린 클라이언트가 공용 작업 스레드를 붙잡지 않도록 호출
+ * 스레드가 행 하나를 넘기는 데 member.parallel-scan.stall-timeout-ms 넘게 걸리면 스캔을 실패로 끝낸다.
+ * <p>
+ * 작업 스레드는 member.parallel-scan.workers 개로 모든 스캔이 함께 쓴다. 커넥션 풀보다 작게 둔다. 스레드 풀 큐는 FIFO
+ * 이므로 앞 구간이 뒤 구간보다 먼저 시작되어 서로 기다리며 멈추지 않는다. 호출 스레드의 요청 마감은 작업 스레드로 넘긴다.
+ */
+@Component
+public class ParallelRangeScanner implements DisposableBean {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 100;
+
+    private final SessionFactory sessionFactory;
+    private final ExecutorService executor;
+    private final int workers;
+    private final int bufferSize;
+    private final long minRowsPerRange;
+    private final long stallTimeoutNanos;
+
+    public ParallelRangeScanner(EntityManagerFactory entityManagerFactory,
+        @Value("${member.parallel-scan.workers:4}") int workers,
+        @Value("${member.parallel-scan.buffer-size:2000}") int bufferSize,
+        @Value("${member.parallel-scan.min-rows-per-range:50000}") long minRowsPerRange,
+        @Value("${member.parallel-scan.stall-timeout-ms:10000}") long stallTimeoutMillis) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.executor = Executors.newFixedThreadPool(workers,
+            new CustomizableThreadFactory("range-scan-"));
+        this.workers = workers;
+        this.bufferSize = bufferSize;
+        this.minRowsPerRange = minRowsPerRange;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMillis);
+    }
+
+    /**
+     * rows 건을 몇 구간으로 나눌지. 구간마다 최소 min-rows-per-range 건이며 workers 를 넘지 않는다.
+     */
+    public int parts(long rows) {
+        return (int) Math.max(1, Math.min(workers, rows / Math.max(1, minRowsPerRange)));
+    }
+
+    /**
+     * @return 처리한 행 수
+     */
+    public <T> long scan(NumberPath<Long> id, List<IdRange> ranges, int fetchSize,
+        RangeQuery<T> query, Consumer<? super T> consumer) {
+        Long deadline = Deadline.snapshot();
+        Progress progress = new Progress();
+        List<BlockingQueue<Object>> buffers = new ArrayList<>(ranges.size());
+        List<Future<?>> futures = new ArrayList<>(ranges.size());
+        for (IdRange range : ranges) {
+            BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+            buffers.add(buffer);
+            futures.add(executor.submit(() -> {
+                Deadline.restore(deadline);
+                try {
+                    produce(query, range.predicate(id), fetchSize, buffer, progress);
+                } finally {
+                    Deadline.clear();
+                }
+            }));
+        }
+
+        long count = 0;
+        try {
+            for (int i = 0; i < buffers.size(); i++) {
+                BlockingQueue<Object> buffer = buffers.get(i);
+                Future<?> future = futures.get(i);
+                while (true) {
+                    Object row = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (row == null) {
+                        if (future.isDone() && buffer.isEmpty()) {
+                            throw new IllegalStateException("range scan ended without a result");
+                        }
+                        continue;
+                    }
+                    if (row == END) {
+                        break;
+                    }
+                    if (row instanceof Failure) {
+                        throw ((Failure) row).rethrow();
+                    }
+                    @SuppressWarnings("unchecked")
+                    T value = (T) row;
+                    progress.accepting();
+                    consumer.accept(value);
+                    progress.accepted();
+                    count++;
+                }
+            }
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            // 중간에 실패하면 버퍼가 차서 기다리는 작업 스레드를 깨워 끝낸다.
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * 어떻게 끝나든 마지막에 END 나 Failure 를 넣는다. 호출 스레드가 행 하나를 stall-timeout 넘게 처리하고 있으면(응답을 못
+     * 쓰고 있으면) 작업 스레드를 풀에 돌려주기 위해 스캔을 실패로 끝낸다.
+     */
+    private <T> void produce(RangeQuery<T> query, Predicate range, int fetchSize,
+        BlockingQueue<Object> buffer, Progress progress) {
+        Object last = END;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            ScrollableResults results = query.create(new HibernateQuery<>(session), range)
+                .setFetchSize(fetchSize)
+                .setTimeout(Deadline.timeoutSeconds())
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    if (!put(buffer, results.get(0), progress)) {
+                        last = stalled();
+                        break;
+                    }
+                }
+            } finally {
+                results.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            last = new Failure(new IllegalStateException("range scan interrupted", e));
+        } catch (RuntimeException | Error e) {
+            last = new Failure(e);
+        } finally {
+            finish(buffer, last, progress);
+        }
+    }
+
+    private void finish(BlockingQueue<Object> buffer, Object last, Progress progress) {
+        if (last == END) {
+            try {
+                if (put(buffer, END, progress)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            last = stalled();
+        }
+        // 실패면 남은 행은 필요 없으므로 비우고 넣는다. 생산자는 이 스레드 하나라 자리가 생긴다.
+        buffer.clear();
+        buffer.offer(last);
+    }
+
+    /**
+     * 버퍼에 자리가 날 때까지 기다린다. 호출 스레드가 stall-timeout 넘게 한 행에 멈춰 있으면 false 이다.
+     */
+    private boolean put(BlockingQueue<Object> buffer, Object row, Progress progress)
+        throws InterruptedException {
+        while (!buffer.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (progress.stalledNanos() > stallTimeoutNanos) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Failure stalled() {
+        return new Failure(new IllegalStateException("range scan consumer stalled for more than "
+            + TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos) + "ms"));
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class Failure {
+
+        private final Throwable exception;
+
+        private Failure(Throwable exception) {
+            this.exception = exception;
+        }
+
+        private RuntimeException rethrow() {
+            if (exception instanceof Error) {
+                throw (Error) exception;
+            }
+            if (exception instanceof RuntimeException) {
+                return (RuntimeException) exception;
+            }
+            return new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * 호출 스레드가 consumer 에 행 하나를 넘기고 돌아오지 않은 시간. 앞 구간을 기다리는 시간은 세지 않는다.
+     */
+    private static final class Progress {
+
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private volatile long acceptStartedAt = IDLE;
+
+        void accepting() {
+            acceptStartedAt = System.nanoTime();
+        }
+
+        void accepted() {
+            acceptStartedAt = IDLE;
+        }
+
+        long stalledNanos() {
+            long startedAt = acceptStartedAt;
+            return startedAt == IDLE ? 0 : System.nanoTime() - startedAt;
+        }
+    }
+}
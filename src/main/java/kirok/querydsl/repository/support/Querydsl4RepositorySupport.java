@@ -1,14 +1,37 @@
 package kirok.querydsl.repository.support;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.hibernate.HibernateQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import kirok.querydsl.deadline.Deadline;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -17,11 +40,18 @@ import org.springframework.data.jpa.repository.support.JpaEntityInformationSuppo
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
+ * <p>
+ * 읽기 전용 트랜잭션이면 JpaTransactionManager 가 세션을 read-only, flush 모드 MANUAL 로 열므로 쿼리마다 힌트를 붙이지 않는다.
+ * 트랜잭션 밖에서 읽기 전용으로 조회하려면 selectReadOnly/selectFromReadOnly 를, 대량 조회는 영속성 컨텍스트를 거치지 않는
+ * scan 을, 수십만 건 이상은
+ * id 구간으로 나누어 병렬로 읽는 parallelScan 을 쓴다. 연관관계는 {@link FetchPlan} 으로 본문 쿼리에만 붙여 읽는다.
+ * 모든 조회에는 요청의 {@link Deadline} 이 타임아웃으로 붙는다.
  *
  * @author Younghan Kim
  * @see org.springframework.data.jpa.repository.support.QuerydslRepositorySupport
@@ -29,10 +59,14 @@ import org.springframework.util.Assert;
 @Repository
 public abstract class Querydsl4RepositorySupport {
 
+    private static final int IN_CHUNK = 1000;
+
     private final Class domainClass;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ParallelRangeScanner rangeScanner;
+    private DataSource dataSource;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -49,7 +83,17 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
             PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.queryFactory = new DeadlineJPAQueryFactory(entityManager);
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Autowired
+    public void setRangeScanner(ParallelRangeScanner rangeScanner) {
+        this.rangeScanner = rangeScanner;
     }
 
     @PostConstruct
@@ -71,6 +115,10 @@ public abstract class Querydsl4RepositorySupport {
         return entityManager;
     }
 
+    protected JPAQuery<Tuple> select(Expression<?>... exprs) {
+        return getQueryFactory().select(exprs);
+    }
+
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -79,6 +127,75 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    protected <T> JPAQuery<T> selectReadOnly(Expression<T> expr) {
+        return ReadOnlyQueries.hint(getQueryFactory().select(expr));
+    }
+
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return ReadOnlyQueries.hint(getQueryFactory().selectFrom(from));
+    }
+
+    /**
+     * StatelessSession 으로 결과를 한 행씩 흘려 보낸다. 1차 캐시와 스냅샷이 없어서 건수와 관계없이 힙 사용량이 일정하다.
+     * <p>
+     * 커넥션은 dataSource 에서 현재 트랜잭션에 묶인 것을 쓰므로 트랜잭션의 격리 수준과 primary/replica 라우팅을 그대로 따른다.
+     * 세션은 별도이므로 현재 영속성 컨텍스트의 flush 되지 않은 변경은 보이지 않고, 지연 로딩도 되지 않는다. 연관 엔티티가
+     * 필요하면 fetch join 한다.
+     *
+     * @return 처리한 행 수
+     */
+    protected <T> long scan(Function<HibernateQuery<?>, HibernateQuery<T>> query, int fetchSize,
+        Consumer<? super T> consumer) {
+        SessionFactory sessionFactory =
+            getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (StatelessSession session = sessionFactory.openStatelessSession(connection)) {
+            ScrollableResults results = query.apply(new HibernateQuery<>(session))
+                .setFetchSize(fetchSize)
+                .setTimeout(Deadline.timeoutSeconds())
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+            long count = 0;
+            try {
+                while (results.next()) {
+                    @SuppressWarnings("unchecked")
+                    T row = (T) results.get(0);
+                    consumer.accept(row);
+                    count++;
+                }
+            } finally {
+                results.close();
+            }
+            return count;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * where 에 맞는 행의 id 최소/최대를 폭이 같은 구간으로 나눈다. 구간 수는 행 수와 작업 스레드 수로 정한다.
+     */
+    protected List<IdRange> idRanges(EntityPath<?> from, NumberPath<Long> id, Predicate where) {
+        Tuple bounds = select(id.min(), id.max(), id.count()).from(from).where(where).fetchOne();
+        Long min = bounds.get(id.min());
+        if (min == null) {
+            return new ArrayList<>();
+        }
+        return IdRange.split(min, bounds.get(id.max()),
+            rangeScanner.parts(bounds.get(id.count())));
+    }
+
+    /**
+     * id 구간을 {@link ParallelRangeScanner} 작업 스레드에서 StatelessSession 으로 나누어 읽고 id 순서대로 흘려 보낸다.
+     * 쿼리는 구간 안에서 id 오름차순으로 정렬해야 한다. 제약은 {@link #scan} 과 같다.
+     *
+     * @return 처리한 행 수
+     */
+    protected <T> long parallelScan(NumberPath<Long> id, List<IdRange> ranges, int fetchSize,
+        RangeQuery<T> query, Consumer<? super T> consumer) {
+        return rangeScanner.scan(id, ranges, fetchSize, query, consumer);
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
         Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
@@ -98,4 +215,76 @@ public abstract class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable,
             countResult::fetchCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * FetchPlan 은 본문 쿼리에만 적용된다. count 쿼리는 join 없이 따로 넘긴다.
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable, FetchPlan fetchPlan,
+        Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+        Function<JPAQueryFactory, JPAQuery<?>> countQuery) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applyPagination(pageable, jpaContentQuery);
+        List<T> content = fetch(jpaContentQuery, fetchPlan);
+        JPAQuery<?> countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable,
+            countResult::fetchCount);
+    }
+
+    protected <T> List<T> fetch(JPAQuery<T> query, FetchPlan fetchPlan) {
+        if (fetchPlan.getEntityGraph() != null) {
+            query.setHint(QueryHints.HINT_FETCHGRAPH,
+                getEntityManager().getEntityGraph(fetchPlan.getEntityGraph()));
+        }
+        List<T> content = query.fetch();
+        loadAssociations(content, fetchPlan.getBatchAssociations());
+        return content;
+    }
+
+    /**
+     * 아직 초기화되지 않은 연관 프록시의 id 를 대상 엔티티별로 모아 IN 쿼리로 읽고 프록시를 초기화한다. 대상 엔티티가 영속성
+     * 컨텍스트에 올라온 뒤라서 초기화에 추가 쿼리는 없다.
+     */
+    private void loadAssociations(List<?> content, List<String> associations) {
+        if (content.isEmpty() || associations.isEmpty()) {
+            return;
+        }
+        MetamodelImplementor metamodel = getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class).getMetamodel();
+
+        List<HibernateProxy> proxies = new ArrayList<>();
+        Map<String, Set<Object>> idsByEntity = new HashMap<>();
+        for (Object entity : content) {
+            if (entity == null) {
+                continue;
+            }
+            for (String association : associations) {
+                Object value = metamodel.entityPersister(Hibernate.getClass(entity))
+                    .getPropertyValue(entity, association);
+                if (!(value instanceof HibernateProxy)) {
+                    continue;
+                }
+                LazyInitializer initializer =
+                    ((HibernateProxy) value).getHibernateLazyInitializer();
+                if (initializer.isUninitialized()) {
+                    proxies.add((HibernateProxy) value);
+                    idsByEntity.computeIfAbsent(initializer.getEntityName(),
+                        name -> new LinkedHashSet<>()).add(initializer.getIdentifier());
+                }
+            }
+        }
+
+        idsByEntity.forEach((entityName, ids) -> {
+            String idName = metamodel.entityPersister(entityName).getIdentifierPropertyName();
+            List<Object> idList = new ArrayList<>(ids);
+            for (int from = 0; from < idList.size(); from += IN_CHUNK) {
+                Deadline.apply(getEntityManager()
+                    .createQuery("select e from " + entityName + " e where e." + idName
+                        + " in :ids"))
+                    .setParameter("ids", idList.subList(from,
+                        Math.min(from + IN_CHUNK, idList.size())))
+                    .getResultList();
+            }
+        });
+        proxies.forEach(Hibernate::initialize);
+    }
+}
@@ -0,0 +1,13 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+
+/**
+ * id 구간 하나를 읽는 쿼리. range 는 where 절에 원래 조건과 함께 넣는다.
+ */
+@FunctionalInterface
+public interface RangeQuery<T> {
+
+    HibernateQuery<T> create(HibernateQuery<?> query, Predicate range);
+}
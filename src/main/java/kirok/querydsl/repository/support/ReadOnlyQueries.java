@@ -0,0 +1,31 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import javax.persistence.TypedQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.QueryHints;
+
+/**
+ * 읽기 전용 조회 힌트.
+ * <p>
+ * org.hibernate.readOnly 로 읽은 엔티티는 dirty checking 용 스냅샷(loadedState)을 남기지 않고, flush 모드 MANUAL 은 조회 전
+ * 자동 flush 를 건너뛴다. 읽기 전용 트랜잭션은 JpaTransactionManager 가 세션 전체에 같은 설정을 하므로 트랜잭션 밖에서
+ * 조회할 때만 쓴다. 읽기 전용으로 읽은 엔티티는 수정해도 반영되지 않는다.
+ */
+public final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    public static <Q extends AbstractJPAQuery<?, Q>> Q hint(Q query) {
+        return query
+            .setHint(QueryHints.HINT_READONLY, true)
+            .setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+    }
+
+    public static <T> TypedQuery<T> hint(TypedQuery<T> query) {
+        return query
+            .setHint(QueryHints.HINT_READONLY, true)
+            .setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
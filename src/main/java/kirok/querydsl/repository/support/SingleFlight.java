@@ -0,0 +1,105 @@
+package kirok.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 호출을 하나만 실행하고 결과를 나눠 갖는다.
+ * <p>
+ * 처음 온 호출(leader)이 실행하고, 실행 중에 같은 키로 온 호출은 leader 의 결과를 기다린다. 등록은 putIfAbsent 한 번이고
+ * 실행이 끝나면 바로 지우므로 결과를 캐시하지는 않는다. leader 가 실패하면 기다리던 호출도 같은 예외를 받는다. 다만 leader
+ * 자신의 제약(마감 등) 때문에 난 실패는 leaderScoped 로 골라 기다리던 호출이 직접 실행한다. timeout 과 호출마다 넘기는
+ * maxWait 중 짧은 시간 안에 끝나지 않아도 기다리던 호출은 직접 실행한다.
+ * <p>
+ * 지표는 {name}{result=leader|coalesced|timeout|retry} 카운터이다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+    private final Counter retries;
+    private final Predicate<Throwable> leaderScoped;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this(name, timeout, meterRegistry, e -> false);
+    }
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry,
+        Predicate<Throwable> leaderScoped) {
+        this.timeout = timeout;
+        this.leaders = meterRegistry.counter(name, "result", "leader");
+        this.coalesced = meterRegistry.counter(name, "result", "coalesced");
+        this.timeouts = meterRegistry.counter(name, "result", "timeout");
+        this.retries = meterRegistry.counter(name, "result", "retry");
+        this.leaderScoped = leaderScoped;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        return execute(key, call, null);
+    }
+
+    /**
+     * @param maxWait 기다리던 호출이 leader 를 기다릴 최대 시간. null 이면 timeout 만 쓴다.
+     */
+    public V execute(K key, Supplier<V> call, Duration maxWait) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running == null) {
+            leaders.increment();
+            try {
+                V result = call.get();
+                mine.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        coalesced.increment();
+        long waitNanos = timeout.toNanos();
+        if (maxWait != null) {
+            waitNanos = Math.max(0, Math.min(waitNanos, maxWait.toNanos()));
+        }
+        try {
+            return running.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (leaderScoped.test(cause)) {
+                retries.increment();
+                return call.get();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,81 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Tombstone;
+import kirok.querydsl.entity.TombstoneType;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.BulkChanges;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.version.ChangeSequence;
+import kirok.querydsl.version.DataVersion;
+
+/**
+ * 삭제한 행마다 {@link Tombstone} 을 남기고 {@link DataVersion} 을 올리고 {@link BulkChangedEvent} 를 남기는 벌크 delete.
+ * 벌크 연산은 엔티티 리스너를 거치지 않는다.
+ * <p>
+ * 조건에 맞는 id 를 먼저 읽고 그 id 만 지운다. 삭제 기록은 모두 같은 changeSeq 를 가지며 델타 조회는 (changeSeq, id) 로
+ * 나눠 읽는다. 원래 조건으로 지우면 읽은 뒤 들어온 행이 기록 없이 지워질 수 있다.
+ */
+public class VersionedJPADeleteClause extends JPADeleteClause {
+
+    private final EntityManager em;
+    private final EntityPath<?> entity;
+    private final List<Predicate> predicates = new ArrayList<>();
+
+    public VersionedJPADeleteClause(EntityManager em, EntityPath<?> entity) {
+        super(em, entity);
+        this.em = em;
+        this.entity = entity;
+    }
+
+    @Override
+    public JPADeleteClause where(Predicate... o) {
+        predicates.addAll(Arrays.asList(o));
+        return this;
+    }
+
+    @Override
+    public long execute() {
+        NumberPath<Long> id = Expressions.numberPath(Long.class, entity, "id");
+        List<Long> ids = new JPAQuery<Void>(em)
+            .select(id)
+            .from(entity)
+            .where(predicates.toArray(new Predicate[0]))
+            .fetch();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // 한 번 실행한 delete 의 삭제 기록은 모두 같은 changeSeq 를 받는다. 기록은 조각마다 insert ... select 한 번으로 남기고
+        // 영속성 컨텍스트에는 올리지 않는다.
+        TombstoneType type =
+            entity.getType() == Member.class ? TombstoneType.MEMBER : TombstoneType.TEAM;
+        long changeSeq = ChangeSequence.next();
+        String insert = "insert into Tombstone (type, entityId, changeSeq)"
+            + " select :type, e.id, :changeSeq from " + entity.getType().getSimpleName() + " e"
+            + " where e.id in (:ids)";
+        long deleted = 0;
+        for (List<Long> chunk : InLists.chunks(ids)) {
+            em.createQuery(insert)
+                .setParameter("type", type)
+                .setParameter("changeSeq", changeSeq)
+                .setParameter("ids", chunk)
+                .executeUpdate();
+            deleted += new JPADeleteClause(em, entity).where(id.in(chunk)).execute();
+        }
+        DataVersion.changed();
+        BulkChanges.record(new BulkChangedEvent(entity.getType(), ChangeType.DELETE, changeSeq,
+            deleted, ids));
+        return deleted;
+    }
+}
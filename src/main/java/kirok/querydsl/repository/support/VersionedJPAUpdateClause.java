@@ -0,0 +1,76 @@
+package kirok.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.Collections;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.BulkChanges;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.version.ChangeSequence;
+import kirok.querydsl.version.DataVersion;
+
+/**
+ * 바뀐 행에 새 changeSeq 를 넣고, 실행하면 {@link DataVersion} 을 올리고 {@link BulkChangedEvent} 를 남기는 벌크 update.
+ * 벌크 연산은 엔티티 리스너를 거치지 않는다. 한 번 실행한 update 의 행은 모두 같은 changeSeq 를 받는다.
+ * <p>
+ * 같은 이유로 Member.age 를 바꾸면 ageGroup 도 {@link AgeGroups#caseOf} 로 함께 바꾼다. ageGroup 을 age 보다 먼저 넣어서
+ * SET 을 왼쪽부터 적용하는 DB(MySQL)에서도 바뀌기 전 age 로 계산되지 않게 한다.
+ */
+public class VersionedJPAUpdateClause extends JPAUpdateClause {
+
+    private final EntityPath<?> entity;
+
+    public VersionedJPAUpdateClause(EntityManager em, EntityPath<?> entity) {
+        super(em, entity);
+        this.entity = entity;
+    }
+
+    @Override
+    public <T> JPAUpdateClause set(Path<T> path, T value) {
+        AgeGroups ageGroups = AgeGroups.current();
+        if (value != null && ageGroups != null && isMemberAge(path)) {
+            super.set(ageGroupPath(), ageGroups.groupOf((Integer) value));
+        }
+        return super.set(path, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+        AgeGroups ageGroups = AgeGroups.current();
+        if (expression != null && ageGroups != null && isMemberAge(path)) {
+            super.set(ageGroupPath(),
+                ageGroups.caseOf(Expressions.asNumber((Expression<Integer>) expression)));
+        }
+        return super.set(path, expression);
+    }
+
+    @Override
+    public long execute() {
+        long changeSeq = ChangeSequence.next();
+        set(Expressions.numberPath(Long.class, entity, "changeSeq"), changeSeq);
+        long updated = super.execute();
+        if (updated > 0) {
+            DataVersion.changed();
+            BulkChanges.record(new BulkChangedEvent(entity.getType(), ChangeType.UPDATE,
+                changeSeq, updated, Collections.emptyList()));
+        }
+        return updated;
+    }
+
+    private boolean isMemberAge(Path<?> path) {
+        return entity.getType() == Member.class
+            && entity.equals(path.getMetadata().getParent())
+            && "age".equals(path.getMetadata().getName());
+    }
+
+    private Path<Integer> ageGroupPath() {
+        return Expressions.numberPath(Integer.class, entity, "ageGroup");
+    }
+}
@@ -0,0 +1,31 @@
+package kirok.querydsl.shard;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * app.shard.enabled=true 일 때 회원 샤드와 fan-out 조회 스레드 풀을 만든다. 샤드는 조회용 사본이다. 쓰기와 원본은 계속
+ * primary 에 있고 샤드는 {@link ShardReplicator} 가 커밋 후 이벤트로 따라간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.shard.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+    @Bean
+    public Shards shards(ShardProperties properties) {
+        return Shards.create(properties);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService shardExecutor(ShardProperties properties) {
+        return Executors.newFixedThreadPool(
+            properties.getCount() * properties.getQueriesPerShard(),
+            new CustomizableThreadFactory("member-shard-"));
+    }
+}
@@ -0,0 +1,42 @@
+package kirok.querydsl.shard;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * app.shard.* 설정. url-template 의 %d 에 샤드 번호(0 부터)가 들어간다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("app.shard")
+public class ShardProperties {
+
+    private boolean enabled;
+    private int count = 4;
+    private String urlTemplate = "jdbc:h2:mem:member_shard_%d;DB_CLOSE_DELAY=-1";
+    private String username = "sa";
+    private String password = "";
+    private String driverClassName = "org.h2.Driver";
+
+    /**
+     * 샤드마다 동시에 돌릴 수 있는 조회 수. fan-out 스레드 풀 크기는 count * 이 값이다.
+     */
+    private int queriesPerShard = 4;
+
+    /**
+     * 시작할 때 primary 에서 샤드로 옮기는 한 번의 행 수.
+     */
+    private int loadBatchSize = 1000;
+
+    /**
+     * 샤드 하나에 쌓아 두고 다시 시도할 작업 수의 상한. 넘으면 그 샤드를 primary 에서 다시 채운다.
+     */
+    private int maxPendingOperations = 100_000;
+
+    /**
+     * fan-out 조회 전체를 기다리는 최대 시간. 요청 마감이 더 짧으면 그쪽을 쓴다.
+     */
+    private Duration fanOutTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,357 @@
+package kirok.querydsl.shard;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.MemberTeamView;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import kirok.querydsl.repository.support.InLists;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * primary 의 member, team 을 샤드로 옮긴다.
+ * <p>
+ * 샤드는 team_id 로 나눈 읽기 전용 사본이다. 쓰기와 원본은 계속 primary 에 있고 primary 의 member 테이블을 나누지는 않는다.
+ * 샤드가 덜어 주는 것은 조회 부하뿐이다.
+ * <p>
+ * 시작할 때 member id 순으로 load-batch-size 건씩 읽어 샤드를 채우고, 이후에는 커밋 후 이벤트를 큐에 쌓아
+ * app.shard.flush-interval-ms 마다 샤드별 트랜잭션 하나로 반영한다. 팀이 바뀐 회원은 옛 샤드에서 지우고 새 샤드에 넣는다.
+ * 이전 팀을 모르는 UPDATE 는 다른 모든 샤드에서 지운다. 벌크 update 는 그 changeSeq 를 가진 행을 primary 에서 다시 읽어
+ * 반영하고, 벌크 delete 는 지운 id 를 모든 샤드에서 지운다.
+ * <p>
+ * 작업은 모두 멱등이다. 샤드 쓰기가 실패하면 작업을 버리지 않고 보관했다가 다음 flush 에서 새 작업보다 먼저 다시 시도한다.
+ * 보관한 작업이 max-pending-operations 를 넘거나 primary 에서 계획을 세우지 못하면 해당 샤드를 비우고 primary 에서 다시
+ * 채운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.shard.enabled", havingValue = "true")
+public class ShardReplicator {
+
+    private final Shards shards;
+    private final JPAQueryFactory queryFactory;
+    private final AgeGroups ageGroups;
+    private final TransactionTemplate tx;
+    private final int loadBatchSize;
+    private final int maxPendingOperations;
+
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final Object applyLock = new Object();
+
+    /**
+     * 실패해서 다시 시도할 샤드별 작업과 다시 채울 샤드. applyLock 으로 보호한다.
+     */
+    private final Map<Integer, List<Consumer<EntityManager>>> pending = new TreeMap<>();
+    private final Set<Integer> resync = new TreeSet<>();
+
+    public ShardReplicator(Shards shards, JPAQueryFactory queryFactory, AgeGroups ageGroups,
+        PlatformTransactionManager transactionManager, ShardProperties properties) {
+        this.shards = shards;
+        this.queryFactory = queryFactory;
+        this.ageGroups = ageGroups;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.loadBatchSize = properties.getLoadBatchSize();
+        this.maxPendingOperations = properties.getMaxPendingOperations();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (applyLock) {
+            queue.clear();
+            pending.clear();
+            resync.clear();
+            reload(allShards());
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        queue.add(event);
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        if (event.getType() == ChangeType.UPDATE
+            && !Objects.equals(event.getName(), event.getOldName())) {
+            queue.add(event);
+        }
+    }
+
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (event.getRows() > 0) {
+            queue.add(event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.shard.flush-interval-ms:200}")
+    public void flush() {
+        synchronized (applyLock) {
+            List<Object> events = new ArrayList<>();
+            Object next;
+            while ((next = queue.poll()) != null) {
+                events.add(next);
+            }
+
+            if (!resync.isEmpty()) {
+                Set<Integer> targets = new TreeSet<>(resync);
+                resync.clear();
+                targets.forEach(pending::remove);
+                try {
+                    reload(targets);
+                } catch (RuntimeException e) {
+                    log.error("member shards {} reload failed", targets, e);
+                    resync.addAll(targets);
+                }
+            }
+
+            Map<Integer, List<Consumer<EntityManager>>> operations = new TreeMap<>();
+            if (!events.isEmpty()) {
+                Map<Long, String> teamNames = new HashMap<>();
+                try {
+                    ReadYourWrites.onPrimary(() -> tx.executeWithoutResult(status -> {
+                        for (Object event : events) {
+                            plan(event, teamNames, operations);
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    // 어떤 샤드가 어떤 변경을 놓쳤는지 알 수 없으므로 모두 다시 채운다.
+                    log.error("member shard update planning failed, reloading all shards", e);
+                    operations.clear();
+                    resync.addAll(allShards());
+                }
+            }
+
+            for (Map.Entry<Integer, List<Consumer<EntityManager>>> entry : pending.entrySet()) {
+                operations.merge(entry.getKey(), entry.getValue(), (newer, older) -> {
+                    older.addAll(newer);
+                    return older;
+                });
+            }
+            pending.clear();
+
+            operations.forEach((shard, work) -> {
+                if (resync.contains(shard)) {
+                    return;
+                }
+                try {
+                    shards.write(shard, em -> work.forEach(operation -> operation.accept(em)));
+                } catch (RuntimeException e) {
+                    if (work.size() > maxPendingOperations) {
+                        log.error("member shard {} update failed, {} operations pending, "
+                            + "reloading shard", shard, work.size(), e);
+                        resync.add(shard);
+                    } else {
+                        log.warn("member shard {} update failed, retrying {} operations",
+                            shard, work.size(), e);
+                        pending.put(shard, work);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * targets 샤드를 비우고 primary 에서 다시 채운다. 다른 샤드는 건드리지 않는다.
+     */
+    private void reload(Set<Integer> targets) {
+        for (Integer shard : targets) {
+            shards.write(shard, em -> em.createQuery("delete from MemberTeamView")
+                .executeUpdate());
+        }
+
+        long rows = 0;
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            List<Tuple> batch = ReadYourWrites.onPrimary(() -> tx.execute(status ->
+                queryFactory
+                    .select(member.id, member.username, member.age, team.id, team.name)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.gt(after))
+                    .orderBy(member.id.asc())
+                    .limit(loadBatchSize)
+                    .fetch()));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Map<Integer, List<MemberTeamView>> byShard = new TreeMap<>();
+            for (Tuple row : batch) {
+                Long teamId = row.get(team.id);
+                int shard = shards.shardOf(teamId);
+                if (targets.contains(shard)) {
+                    byShard.computeIfAbsent(shard, s -> new ArrayList<>())
+                        .add(new MemberTeamView(row.get(member.id), row.get(member.username),
+                            row.get(member.age), ageGroups.groupOf(row.get(member.age)),
+                            teamId, row.get(team.name)));
+                }
+            }
+            for (Map.Entry<Integer, List<MemberTeamView>> entry : byShard.entrySet()) {
+                List<MemberTeamView> views = entry.getValue();
+                shards.write(entry.getKey(), em -> views.forEach(em::persist));
+                rows += views.size();
+            }
+
+            lastId = batch.get(batch.size() - 1).get(member.id);
+        }
+        log.info("member shards {} loaded: {} rows", targets, rows);
+    }
+
+    private void plan(Object event, Map<Long, String> teamNames,
+        Map<Integer, List<Consumer<EntityManager>>> operations) {
+        if (event instanceof MemberChangedEvent) {
+            plan((MemberChangedEvent) event, teamNames, operations);
+        } else if (event instanceof TeamChangedEvent) {
+            plan((TeamChangedEvent) event, operations);
+        } else {
+            plan((BulkChangedEvent) event, teamNames, operations);
+        }
+    }
+
+    /**
+     * 벌크 update 로 바뀐 행은 모두 이벤트의 changeSeq 를 가지므로 그 번호로 다시 읽는다. 나중에 다시 바뀐 행은 그 변경의
+     * 이벤트가 따로 온다. 다시 읽을 행이 max-pending-operations 보다 많으면 샤드 전체를 다시 채우는 편이 낫다. 팀 벌크 delete 는
+     * 회원이 참조하지 않는 팀만 지울 수 있으므로 샤드에 할 일이 없다.
+     */
+    private void plan(BulkChangedEvent event, Map<Long, String> teamNames,
+        Map<Integer, List<Consumer<EntityManager>>> operations) {
+        if (event.getEntityType() == Member.class && event.getType() == ChangeType.DELETE) {
+            List<List<Long>> chunks = InLists.chunks(event.getIds());
+            for (int shard = 0; shard < shards.size(); shard++) {
+                for (List<Long> ids : chunks) {
+                    operations(operations, shard).add(em -> {
+                        new JPAQueryFactory(em).delete(memberTeamView)
+                            .where(memberTeamView.memberId.in(ids))
+                            .execute();
+                        em.flush();
+                        em.clear();
+                    });
+                }
+            }
+        } else if (event.getEntityType() == Member.class) {
+            if (event.getRows() > maxPendingOperations) {
+                resync.addAll(allShards());
+                return;
+            }
+            for (Tuple row : queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(member.changeSeq.eq(event.getChangeSeq()))
+                .fetch()) {
+                plan(new MemberChangedEvent(ChangeType.UPDATE, null,
+                    new MemberState(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(member.team.id))), teamNames, operations);
+            }
+        } else if (event.getEntityType() == Team.class && event.getType() != ChangeType.DELETE) {
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team)
+                .where(team.changeSeq.eq(event.getChangeSeq()))
+                .fetch()) {
+                teamNames.put(row.get(team.id), row.get(team.name));
+                plan(new TeamChangedEvent(ChangeType.UPDATE, row.get(team.id),
+                    row.get(team.name), null), operations);
+            }
+        }
+    }
+
+    private void plan(MemberChangedEvent event, Map<Long, String> teamNames,
+        Map<Integer, List<Consumer<EntityManager>>> operations) {
+        Long memberId = event.getMemberId();
+        MemberState after = event.getAfter();
+        Integer target = after == null ? null : shards.shardOf(after.getTeamId());
+
+        Set<Integer> stale = new LinkedHashSet<>();
+        if (event.getBefore() != null) {
+            stale.add(shards.shardOf(event.getBefore().getTeamId()));
+        } else if (event.getType() != ChangeType.INSERT) {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                stale.add(shard);
+            }
+        }
+        stale.remove(target);
+        for (Integer shard : stale) {
+            operations(operations, shard).add(em -> {
+                MemberTeamView view = em.find(MemberTeamView.class, memberId);
+                if (view != null) {
+                    em.remove(view);
+                }
+            });
+        }
+
+        if (target == null) {
+            return;
+        }
+        String teamName = after.getTeamId() == null ? null : teamNames.computeIfAbsent(
+            after.getTeamId(), id -> queryFactory.select(team.name).from(team)
+                .where(team.id.eq(id)).fetchOne());
+        int ageGroup = ageGroups.groupOf(after.getAge());
+        operations(operations, target).add(em -> {
+            MemberTeamView view = em.find(MemberTeamView.class, memberId);
+            if (view == null) {
+                em.persist(new MemberTeamView(memberId, after.getUsername(), after.getAge(),
+                    ageGroup, after.getTeamId(), teamName));
+            } else {
+                view.update(after.getUsername(), after.getAge(), ageGroup, after.getTeamId(),
+                    teamName);
+            }
+        });
+    }
+
+    private void plan(TeamChangedEvent event,
+        Map<Integer, List<Consumer<EntityManager>>> operations) {
+        operations(operations, shards.shardOf(event.getTeamId())).add(em -> {
+            new JPAQueryFactory(em).update(memberTeamView)
+                .set(memberTeamView.teamName, event.getName())
+                .where(memberTeamView.teamId.eq(event.getTeamId()))
+                .execute();
+            em.flush();
+            em.clear();
+        });
+    }
+
+    private static List<Consumer<EntityManager>> operations(
+        Map<Integer, List<Consumer<EntityManager>>> operations, int shard) {
+        return operations.computeIfAbsent(shard, s -> new ArrayList<>());
+    }
+
+    private Set<Integer> allShards() {
+        Set<Integer> all = new TreeSet<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            all.add(shard);
+        }
+        return all;
+    }
+}
@@ -0,0 +1,317 @@
+package kirok.querydsl.shard;
+
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
+import static kirok.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import kirok.querydsl.deadline.Deadline;
+import kirok.querydsl.deadline.DeadlineExceededException;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.dto.QMemberTeamDto;
+import kirok.querydsl.repository.MemberSearchPredicate;
+import kirok.querydsl.repository.support.DeadlineJPAQueryFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 샤드 scatter-gather 검색.
+ * <p>
+ * teamName 조건이 있으면 그 이름의 팀이 있는 샤드에만, 없으면 모든 샤드에 같은 조건으로 병렬 조회한다. 샤드마다 같은 정렬로
+ * offset + size 건을 읽고 k-way merge 로 전체 순서에서 offset 부터 size 건을 고른다. 전체 건수는 샤드별 count 의 합이다.
+ * 샤드가 하나면 호출 스레드에서 바로 조회한다.
+ * <p>
+ * 정렬은 memberId(id), username, age, teamId, teamName 만 쓸 수 있고 마지막에 memberId 오름차순을 붙인다. 병합 순서가 DB
+ * 정렬과 같도록 null 은 가장 작은 값으로 둔다. 페이지가 깊어질수록 샤드마다 읽는 행이 늘어난다.
+ */
+@Component
+@ConditionalOnProperty(name = "app.shard.enabled", havingValue = "true")
+public class ShardedMemberSearch {
+
+    private static final Map<String, SortKey> SORT_KEYS = new HashMap<>();
+
+    static {
+        SortKey memberId = new SortKey(memberTeamView.memberId, MemberTeamDto::getMemberId);
+        SORT_KEYS.put("memberId", memberId);
+        SORT_KEYS.put("id", memberId);
+        SORT_KEYS.put("username",
+            new SortKey(memberTeamView.username, MemberTeamDto::getUsername));
+        SORT_KEYS.put("age", new SortKey(memberTeamView.age, MemberTeamDto::getAge));
+        SORT_KEYS.put("teamId", new SortKey(memberTeamView.teamId, MemberTeamDto::getTeamId));
+        SORT_KEYS.put("teamName",
+            new SortKey(memberTeamView.teamName, MemberTeamDto::getTeamName));
+    }
+
+    private final Shards shards;
+    private final ExecutorService executor;
+    private final JPAQueryFactory queryFactory;
+    private final long fanOutTimeoutMillis;
+
+    public ShardedMemberSearch(Shards shards,
+        @Qualifier("shardExecutor") ExecutorService executor, JPAQueryFactory queryFactory,
+        ShardProperties properties) {
+        this.shards = shards;
+        this.executor = executor;
+        this.queryFactory = queryFactory;
+        this.fanOutTimeoutMillis = properties.getFanOutTimeout().toMillis();
+    }
+
+    /**
+     * 팀 이름으로 샤드를 고를 때만 primary 를 읽는다.
+     */
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> search(MemberSearchDto condition, Pageable pageable) {
+        MemberSearchPredicate where = MemberSearchPredicate.compileView(condition, null);
+        if (where.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Set<Integer> targets = targets(condition);
+        if (targets.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Sort sort = pageable.getSort();
+        List<OrderSpecifier<?>> orders = orders(sort);
+        long limit = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : -1;
+        List<ShardPage> pages = fetch(targets,
+            em -> query(em, where, orders, limit));
+
+        long total = 0;
+        List<List<MemberTeamDto>> contents = new ArrayList<>(pages.size());
+        for (ShardPage page : pages) {
+            total += page.total;
+            contents.add(page.content);
+        }
+        List<MemberTeamDto> content = pageable.isPaged()
+            ? merge(contents, comparator(sort), pageable.getOffset(), pageable.getPageSize())
+            : merge(contents, comparator(sort), 0, -1);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private Set<Integer> targets(MemberSearchDto condition) {
+        Set<Integer> targets = new TreeSet<>();
+        if (!hasText(condition.getTeamName())) {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                targets.add(shard);
+            }
+            return targets;
+        }
+        for (Long teamId : queryFactory.select(team.id).from(team)
+            .where(team.name.eq(condition.getTeamName())).fetch()) {
+            targets.add(shards.shardOf(teamId));
+        }
+        return targets;
+    }
+
+    private List<ShardPage> fetch(Set<Integer> targets, Function<EntityManager, ShardPage> work) {
+        List<ShardPage> pages = new ArrayList<>(targets.size());
+        if (targets.size() == 1) {
+            pages.add(shards.read(targets.iterator().next(), work));
+            return pages;
+        }
+
+        Long deadline = Deadline.snapshot();
+        List<Future<ShardPage>> futures = new ArrayList<>(targets.size());
+        for (int shard : targets) {
+            futures.add(executor.submit(() -> {
+                Deadline.restore(deadline);
+                try {
+                    return shards.read(shard, work);
+                } finally {
+                    Deadline.clear();
+                }
+            }));
+        }
+
+        long waitUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanOutTimeoutMillis);
+        if (deadline != null) {
+            waitUntil = Math.min(waitUntil, deadline);
+        }
+        try {
+            for (Future<ShardPage> future : futures) {
+                pages.add(future.get(Math.max(0, waitUntil - System.nanoTime()),
+                    TimeUnit.NANOSECONDS));
+            }
+            return pages;
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static ShardPage query(EntityManager em, MemberSearchPredicate where,
+        List<OrderSpecifier<?>> orders, long limit) {
+        JPAQueryFactory shardQueryFactory = new DeadlineJPAQueryFactory(em);
+        JPAQuery<MemberTeamDto> content = shardQueryFactory
+            .select(
+                new QMemberTeamDto(
+                    memberTeamView.memberId,
+                    memberTeamView.username,
+                    memberTeamView.age,
+                    memberTeamView.teamId,
+                    memberTeamView.teamName)
+            )
+            .from(memberTeamView)
+            .where(where.predicate())
+            .orderBy(orders.toArray(new OrderSpecifier[0]));
+        if (limit >= 0) {
+            content.limit(limit);
+        }
+        long total = shardQueryFactory
+            .select(memberTeamView.memberId)
+            .from(memberTeamView)
+            .where(where.predicate())
+            .fetchCount();
+        return new ShardPage(content.fetch(), total);
+    }
+
+    /**
+     * 각각 comparator 순서로 정렬된 목록을 합쳐 offset 부터 size 건을 고른다. size 가 음수면 끝까지 고른다.
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sorted,
+        Comparator<MemberTeamDto> comparator, long offset, int size) {
+        PriorityQueue<Cursor> heap =
+            new PriorityQueue<>((a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<MemberTeamDto> list : sorted) {
+            if (!list.isEmpty()) {
+                heap.add(new Cursor(list));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>(Math.max(size, 0));
+        long skipped = 0;
+        while (!heap.isEmpty() && (size < 0 || result.size() < size)) {
+            Cursor cursor = heap.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    static List<OrderSpecifier<?>> orders(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean memberIdOrdered = false;
+        for (Sort.Order order : sort) {
+            SortKey key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                continue;
+            }
+            orders.add(order.isAscending() ? key.path.asc().nullsFirst()
+                : key.path.desc().nullsLast());
+            memberIdOrdered |= key.path == memberTeamView.memberId;
+        }
+        if (!memberIdOrdered) {
+            orders.add(memberTeamView.memberId.asc());
+        }
+        return orders;
+    }
+
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        boolean memberIdOrdered = false;
+        for (Sort.Order order : sort) {
+            SortKey key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                continue;
+            }
+            Comparator<MemberTeamDto> next = order.isAscending() ? key.comparator
+                : key.comparator.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+            memberIdOrdered |= key.path == memberTeamView.memberId;
+        }
+        if (!memberIdOrdered) {
+            Comparator<MemberTeamDto> byMemberId = SORT_KEYS.get("memberId").comparator;
+            comparator = comparator == null ? byMemberId : comparator.thenComparing(byMemberId);
+        }
+        return comparator;
+    }
+
+    private static final class SortKey {
+
+        private final ComparableExpressionBase<?> path;
+        private final Comparator<MemberTeamDto> comparator;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private SortKey(ComparableExpressionBase<?> path,
+            Function<MemberTeamDto, Comparable<?>> getter) {
+            this.path = path;
+            this.comparator = (a, b) -> {
+                Comparable left = getter.apply(a);
+                Comparable right = getter.apply(b);
+                if (left == null || right == null) {
+                    return left == right ? 0 : left == null ? -1 : 1;
+                }
+                return left.compareTo(right);
+            };
+        }
+    }
+
+    private static final class Cursor {
+
+        private final List<MemberTeamDto> list;
+        private int position;
+
+        private Cursor(List<MemberTeamDto> list) {
+            this.list = list;
+        }
+
+        private MemberTeamDto current() {
+            return list.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < list.size();
+        }
+    }
+
+    private static final class ShardPage {
+
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        private ShardPage(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+}
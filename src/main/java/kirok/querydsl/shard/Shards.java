@@ -0,0 +1,129 @@
+package kirok.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import kirok.querydsl.entity.MemberTeamView;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+/**
+ * team_id 로 나눈 회원 조회 샤드. primary 의 회원을 나눠 옮기는 것이 아니라 조회용으로 나눠 복제한다.
+ * <p>
+ * 샤드마다 데이터소스와 EntityManagerFactory 를 따로 두며, 샤드에는 member 와 team 을 합친 {@link MemberTeamView} 만
+ * 있다. team_id 가 같은 회원은 같은 샤드에 있으므로 팀 하나의 조회는 샤드 하나로 끝난다. 팀이 없는 회원은 0 번 샤드에 둔다.
+ * <p>
+ * 샤드 EntityManagerFactory 는 빈으로 등록하지 않는다. 등록하면 기본 JPA 자동 설정이 물러난다. 샤드 트랜잭션은
+ * RESOURCE_LOCAL 이고 Spring 트랜잭션과 묶이지 않는다.
+ */
+public class Shards implements DisposableBean {
+
+    private final List<HikariDataSource> dataSources;
+    private final List<LocalContainerEntityManagerFactoryBean> factoryBeans;
+    private final List<EntityManagerFactory> factories;
+
+    private Shards(List<HikariDataSource> dataSources,
+        List<LocalContainerEntityManagerFactoryBean> factoryBeans) {
+        this.dataSources = dataSources;
+        this.factoryBeans = factoryBeans;
+        List<EntityManagerFactory> factories = new ArrayList<>();
+        for (LocalContainerEntityManagerFactoryBean factoryBean : factoryBeans) {
+            factories.add(factoryBean.getObject());
+        }
+        this.factories = Collections.unmodifiableList(factories);
+    }
+
+    /**
+     * 샤드 스키마는 시작할 때 새로 만든다. 내용은 {@link ShardReplicator} 가 primary 에서 채운다.
+     */
+    public static Shards create(ShardProperties properties) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        List<LocalContainerEntityManagerFactoryBean> factoryBeans = new ArrayList<>();
+        for (int i = 0; i < properties.getCount(); i++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(String.format(properties.getUrlTemplate(), i))
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .driverClassName(properties.getDriverClassName())
+                .build();
+            dataSource.setPoolName("member-shard-" + i);
+            dataSources.add(dataSource);
+
+            Map<String, Object> jpaProperties = new HashMap<>();
+            jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+            jpaProperties.put("hibernate.physical_naming_strategy",
+                SpringPhysicalNamingStrategy.class.getName());
+            jpaProperties.put("hibernate.implicit_naming_strategy",
+                SpringImplicitNamingStrategy.class.getName());
+
+            LocalContainerEntityManagerFactoryBean factoryBean =
+                new LocalContainerEntityManagerFactoryBean();
+            factoryBean.setPersistenceUnitName("member-shard-" + i);
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setPackagesToScan(MemberTeamView.class.getPackage().getName());
+            factoryBean.setPersistenceUnitPostProcessors(unit -> unit.getManagedClassNames()
+                .retainAll(Collections.singleton(MemberTeamView.class.getName())));
+            factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factoryBean.setJpaPropertyMap(jpaProperties);
+            factoryBean.afterPropertiesSet();
+            factoryBeans.add(factoryBean);
+        }
+        return new Shards(dataSources, factoryBeans);
+    }
+
+    public int size() {
+        return factories.size();
+    }
+
+    public int shardOf(Long teamId) {
+        return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) factories.size());
+    }
+
+    public <R> R read(int shard, Function<EntityManager, R> work) {
+        EntityManager em = factories.get(shard).createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 샤드 하나에서 트랜잭션 하나로 실행한다.
+     */
+    public void write(int shard, Consumer<EntityManager> work) {
+        EntityManager em = factories.get(shard).createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            work.accept(em);
+            transaction.commit();
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        factoryBeans.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
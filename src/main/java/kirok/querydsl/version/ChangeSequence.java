@@ -0,0 +1,63 @@
+package kirok.querydsl.version;
+
+import java.util.TreeSet;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member, Team 변경과 삭제 기록(Tombstone)에 붙이는 changeSeq 발급기. 델타 동기화의 워터마크이다.
+ * <p>
+ * 번호는 flush 시점에 발급되므로 커밋 순서와 다를 수 있다. 10 번을 받은 트랜잭션보다 11 번이 먼저 커밋되면, 11 까지 읽은 클라이언트는
+ * 나중에 커밋된 10 을 놓친다. 그래서 트랜잭션 안에서 발급한 번호는 트랜잭션이 끝날 때까지 진행 중으로 두고, 읽기는
+ * {@link #safeWatermark()} 까지만 한다.
+ * <p>
+ * 번호와 진행 중 목록은 프로세스 안에 있다. 시작할 때 {@link ChangeSequenceInitializer} 가 DB 의 최댓값으로 맞추고, DB 의
+ * lease 로 쓰기 인스턴스가 하나인지 확인한다. 다른 인스턴스가 쓰고 있으면 시작하지 않는다.
+ */
+public final class ChangeSequence {
+
+    private static final TreeSet<Long> IN_FLIGHT = new TreeSet<>();
+    private static long last;
+
+    private ChangeSequence() {
+    }
+
+    public static long next() {
+        long seq;
+        synchronized (IN_FLIGHT) {
+            seq = ++last;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return seq;
+            }
+            IN_FLIGHT.add(seq);
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (IN_FLIGHT) {
+                        IN_FLIGHT.remove(seq);
+                    }
+                }
+            });
+        return seq;
+    }
+
+    /**
+     * 이 번호 이하의 변경은 모두 커밋되었거나 롤백되었다.
+     */
+    public static long safeWatermark() {
+        synchronized (IN_FLIGHT) {
+            return IN_FLIGHT.isEmpty() ? last : IN_FLIGHT.first() - 1;
+        }
+    }
+
+    /**
+     * 발급 번호를 seq 이상으로 올린다. 내려가지는 않는다.
+     */
+    public static void advanceTo(long seq) {
+        synchronized (IN_FLIGHT) {
+            last = Math.max(last, seq);
+        }
+    }
+}
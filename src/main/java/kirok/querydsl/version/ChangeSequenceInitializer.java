@@ -0,0 +1,112 @@
+package kirok.querydsl.version;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTeam.team;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import kirok.querydsl.entity.ChangeSequenceLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 시작할 때 {@link ChangeSequence} 를 member, team, tombstone 의 changeSeq 최댓값으로 맞춘다.
+ * <p>
+ * 번호와 진행 중 목록은 프로세스 안에 있으므로 쓰기 인스턴스는 하나여야 한다. 시작할 때 change_sequence_lease 행을 차지하고
+ * member.change-sequence.lease-renew-ms 마다 갱신한다. 다른 인스턴스가 lease-timeout-ms 안에 갱신한 기록이 있으면 시작하지
+ * 않는다. 시각은 각 인스턴스의 시계이므로 인스턴스 사이의 시계 차이는 lease-timeout-ms 보다 작아야 한다.
+ */
+@Slf4j
+@Component
+public class ChangeSequenceInitializer {
+
+    private static final long LEASE_ID = 1L;
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final long leaseTimeoutMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    public ChangeSequenceInitializer(JPAQueryFactory queryFactory, EntityManager em,
+        PlatformTransactionManager transactionManager,
+        @Value("${member.change-sequence.lease-timeout-ms:30000}") long leaseTimeoutMillis) {
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        tx.executeWithoutResult(status -> {
+            ChangeSequenceLease lease = lockLease();
+            long now = System.currentTimeMillis();
+            if (lease == null) {
+                em.persist(new ChangeSequenceLease(LEASE_ID, owner, now));
+            } else if (lease.heldByOther(owner, now, leaseTimeoutMillis)) {
+                throw new IllegalStateException("change sequence is owned by another instance ("
+                    + lease.getOwner() + "); only one instance may write members and teams");
+            } else {
+                lease.renew(owner, now);
+            }
+        });
+
+        long max = Math.max(
+            value(queryFactory.select(member.changeSeq.max()).from(member).fetchOne()),
+            Math.max(
+                value(queryFactory.select(team.changeSeq.max()).from(team).fetchOne()),
+                value(queryFactory.select(tombstone.changeSeq.max()).from(tombstone).fetchOne())));
+        ChangeSequence.advanceTo(max);
+        log.info("change sequence starts after {}", max);
+    }
+
+    @Scheduled(fixedDelayString = "${member.change-sequence.lease-renew-ms:10000}")
+    public void renew() {
+        tx.executeWithoutResult(status -> {
+            ChangeSequenceLease lease = lockLease();
+            long now = System.currentTimeMillis();
+            if (lease == null) {
+                em.persist(new ChangeSequenceLease(LEASE_ID, owner, now));
+            } else if (lease.heldByOther(owner, now, leaseTimeoutMillis)) {
+                log.error("change sequence lease taken over by {}; changeSeq values may collide",
+                    lease.getOwner());
+            } else {
+                lease.renew(owner, now);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void release() {
+        try {
+            tx.executeWithoutResult(status -> {
+                ChangeSequenceLease lease = lockLease();
+                if (lease != null && owner.equals(lease.getOwner())) {
+                    lease.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("change sequence lease release failed", e);
+        }
+    }
+
+    private ChangeSequenceLease lockLease() {
+        return em.find(ChangeSequenceLease.class, LEASE_ID, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private static long value(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,78 @@
+package kirok.querydsl.version;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member, Team 데이터 버전. 변경이 커밋될 때마다 올라가며 내려가지 않는다.
+ * <p>
+ * 엔티티 변경은 {@link kirok.querydsl.entity.ChangeTrackingListener}, Querydsl 벌크 update/delete 는
+ * {@link kirok.querydsl.repository.support.DeadlineJPAQueryFactory} 가 {@link #changed()} 를 부른다. 트랜잭션마다 한 번,
+ * 커밋된 뒤에 올린다. 버전은 조회 전에 읽으므로 커밋과 버전 올리기 사이에 읽은 요청은 새 데이터에 옛 버전을 달 뿐이고, 옛 데이터에
+ * 새 버전이 붙지는 않는다.
+ * <p>
+ * 버전은 DB 에 있어서({@link DataVersionStore}) 재시작하거나 인스턴스가 여럿이어도 같은 값을 본다. 커밋 후 올리기가 실패하면
+ * 다음 변경까지 버전이 그대로이므로 경고를 남긴다.
+ */
+@Slf4j
+public final class DataVersion {
+
+    private static volatile DataVersionStore store;
+
+    private DataVersion() {
+    }
+
+    static void setStore(DataVersionStore store) {
+        DataVersion.store = store;
+    }
+
+    public static long current() {
+        Long version = store.current();
+        return version == null ? 0 : version;
+    }
+
+    public static void changed() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+            return;
+        }
+        for (TransactionSynchronization synchronization
+            : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof IncrementAfterCommit) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new IncrementAfterCommit());
+    }
+
+    private static void increment() {
+        DataVersionStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.increment();
+        } catch (RuntimeException e) {
+            log.warn("data version increment failed", e);
+        }
+    }
+
+    private static class IncrementAfterCommit implements TransactionSynchronization {
+
+        /**
+         * 커밋 후 콜백 중 가장 마지막에 올린다. 벌크 변경 이벤트({@link kirok.querydsl.event.BulkChanges})가 먼저 반영돼야 새
+         * 버전으로 옛 데이터를 캐시하지 않는다.
+         */
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            increment();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package kirok.querydsl.version;
+
+import static kirok.querydsl.entity.QDataVersionCounter.dataVersionCounter;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.DataVersionCounter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link DataVersion} 을 DB 의 data_version 행에 둔다. 같은 DB 를 쓰는 인스턴스는 모두 같은 버전을 본다.
+ * <p>
+ * 읽기는 읽기 전용 트랜잭션이고 올리기는 호출한 트랜잭션과 따로 커밋한다. 커밋 후 콜백에서 불리기 때문이다.
+ */
+@Component
+public class DataVersionStore {
+
+    private static final long ROW_ID = 1L;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate read;
+    private final TransactionTemplate write;
+
+    public DataVersionStore(EntityManager em, JPAQueryFactory queryFactory,
+        PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.read = new TransactionTemplate(transactionManager);
+        this.read.setReadOnly(true);
+        this.write = new TransactionTemplate(transactionManager);
+        this.write.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            write.executeWithoutResult(status -> {
+                if (em.find(DataVersionCounter.class, ROW_ID) == null) {
+                    em.persist(new DataVersionCounter(ROW_ID));
+                }
+            });
+        } catch (RuntimeException e) {
+            // 다른 인스턴스가 먼저 만들었으면 그대로 쓴다.
+            if (current() == null) {
+                throw e;
+            }
+        }
+        DataVersion.setStore(this);
+    }
+
+    public Long current() {
+        return read.execute(status -> queryFactory
+            .select(dataVersionCounter.version)
+            .from(dataVersionCounter)
+            .where(dataVersionCounter.id.eq(ROW_ID))
+            .fetchOne());
+    }
+
+    public void increment() {
+        write.executeWithoutResult(status -> queryFactory
+            .update(dataVersionCounter)
+            .set(dataVersionCounter.version, dataVersionCounter.version.add(1))
+            .where(dataVersionCounter.id.eq(ROW_ID))
+            .execute());
+    }
+}
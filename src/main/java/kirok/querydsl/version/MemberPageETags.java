@@ -0,0 +1,73 @@
+package kirok.querydsl.version;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.nio.charset.StandardCharsets;
+import kirok.querydsl.dto.MemberSearchDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 회원 페이지 조회의 조건부 GET.
+ * <p>
+ * ETag 는 {@link DataVersion} 과 정규화한 조건, 페이지로 만든다. If-None-Match 가 맞으면 쿼리 전에 304 로 끝낸다. 버전은
+ * 쿼리 전에 읽으므로 조회 중에 변경이 커밋되면 응답은 옛 ETag 를 달고, 다음 요청에서 다시 조회된다. 버전은 DB 에 있으므로
+ * 인스턴스가 여럿이어도 같은 ETag 를 만든다.
+ * <p>
+ * replica 로 읽는 경우(app.datasource.routing.enabled) 버전과 데이터를 서로 다른 DB 에서 읽을 수 있어 replica 가 따라오기
+ * 전의 응답이 새 ETag 를 달 수 있다. 그래서 이때는 ETag 를 쓰지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberPageETags {
+
+    private final boolean enabled;
+
+    public MemberPageETags(@Value("${member.etag.enabled:false}") boolean enabled,
+        @Value("${app.datasource.routing.enabled:false}") boolean routing) {
+        if (enabled && routing) {
+            log.warn("member.etag.enabled is ignored while app.datasource.routing.enabled is on");
+        }
+        this.enabled = enabled && !routing;
+    }
+
+    /**
+     * ETag 헤더를 붙이고 If-None-Match 가 맞으면 true 를 돌려준다. true 이면 핸들러는 조회하지 않고 null 을 돌려준다.
+     *
+     * @param variant 같은 조건이라도 응답 형식이 다른 엔드포인트를 구분한다
+     */
+    public boolean notModified(WebRequest request, String variant, MemberSearchDto condition,
+        Pageable pageable) {
+        if (!enabled) {
+            return false;
+        }
+        return request.checkNotModified(etag(variant, condition, pageable));
+    }
+
+    public static String etag(String variant, MemberSearchDto condition, Pageable pageable) {
+        String key = variant
+            + '|' + text(condition.getUsername())
+            + '|' + text(condition.getUsernameStartsWith())
+            + '|' + text(condition.getUsernameContains())
+            + '|' + text(condition.getTeamName())
+            + '|' + condition.getAgeGoe()
+            + '|' + condition.getAgeLoe()
+            + '|' + condition.getAgeGroup()
+            + '|' + pageable.getPageNumber()
+            + '|' + pageable.getPageSize()
+            + '|' + pageable.getSort();
+        return "W/\"" + DataVersion.current()
+            + '-' + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * 조회 조건은 hasText 로 거르므로 빈 문자열과 null 은 같은 조건이다.
+     */
+    private static String text(String value) {
+        return hasText(value) ? value.length() + ":" + value : "-";
+    }
+}
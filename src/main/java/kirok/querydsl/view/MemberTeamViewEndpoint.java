@@ -0,0 +1,41 @@
+package kirok.querydsl.view;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kirok.querydsl.datasource.ReadYourWrites;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * JMX 전용 memberteamview 엔드포인트. status 는 반영 지연, rebuild 는 전체 재생성이다.
+ * <p>
+ * rebuild 는 뷰를 지우고 다시 채우므로 인증 없는 HTTP 로 열지 않는다. 웹 노출 설정과 관계없이 JMX(spring.jmx.enabled)로만
+ * 쓸 수 있다.
+ */
+@Component
+@JmxEndpoint(id = "memberteamview")
+@RequiredArgsConstructor
+public class MemberTeamViewEndpoint {
+
+    private final MemberTeamViewUpdater updater;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", updater.pendingEvents());
+        status.put("lagMaxMillis", updater.lag().max(TimeUnit.MILLISECONDS));
+        status.put("lagMeanMillis", updater.lag().mean(TimeUnit.MILLISECONDS));
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", ReadYourWrites.onPrimary(updater::rebuild));
+        return result;
+    }
+}
@@ -0,0 +1,300 @@
+package kirok.querydsl.view;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
+import static kirok.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import kirok.querydsl.datasource.ReadYourWrites;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.MemberTeamView;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import kirok.querydsl.repository.support.InLists;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * member_team_view 갱신.
+ * <p>
+ * 커밋 후 {@link MemberChangedEvent}, {@link TeamChangedEvent}, {@link BulkChangedEvent} 를 큐에 쌓아 두고
+ * member.team-view.flush-interval-ms 마다 최대 BATCH_SIZE 건씩 한 트랜잭션으로 반영한다. 회원 변경은 한 행 upsert/delete
+ * 이고, 팀 이름 변경과 팀 삭제는 그 팀의 행 전체를 벌크 update 한다.
+ * <p>
+ * 반영에 실패하면 잃어버린 이벤트를 알 수 없으므로 다음 주기에 {@link #rebuild()} 로 전체를 다시 만든다. 반영 지연은
+ * member.team.view.lag(이벤트 발생에서 반영까지), member.team.view.pending(대기 건수) 지표로 본다.
+ */
+@Slf4j
+@Component
+public class MemberTeamViewUpdater {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final AgeGroups ageGroups;
+    private final TransactionTemplate tx;
+    private final Timer lag;
+
+    @Value("${member.team-view.enabled:false}")
+    private boolean enabled;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object applyLock = new Object();
+    private volatile boolean rebuildRequired;
+
+    public MemberTeamViewUpdater(EntityManager em, JPAQueryFactory queryFactory,
+        AgeGroups ageGroups, PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.ageGroups = ageGroups;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lag = Timer.builder("member.team.view.lag")
+            .description("time from commit to member_team_view update")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("member.team.view.pending", pending, AtomicInteger::get)
+            .description("events waiting to be applied to member_team_view")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            ReadYourWrites.isolated(this::rebuild);
+        }
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (enabled) {
+            enqueue(event);
+        }
+    }
+
+    @EventListener
+    public void on(TeamChangedEvent event) {
+        if (!enabled || event.getType() == ChangeType.INSERT) {
+            return;
+        }
+        if (event.getType() == ChangeType.UPDATE
+            && Objects.equals(event.getName(), event.getOldName())) {
+            return;
+        }
+        enqueue(event);
+    }
+
+    @EventListener
+    public void on(BulkChangedEvent event) {
+        if (enabled && event.getRows() > 0) {
+            enqueue(event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.team-view.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+
+        ReadYourWrites.isolated(() -> {
+            synchronized (applyLock) {
+                if (rebuildRequired) {
+                    rebuild();
+                    return;
+                }
+                while (applyBatch() == BATCH_SIZE) {
+                    // 큐가 빌 때까지 반복
+                }
+            }
+        });
+    }
+
+    /**
+     * member, team 으로부터 member_team_view 를 다시 만든다. 대기 중인 이벤트는 결과에 이미 들어 있으므로 버린다.
+     *
+     * @return 만든 행 수
+     */
+    public int rebuild() {
+        synchronized (applyLock) {
+            while (queue.poll() != null) {
+                pending.decrementAndGet();
+            }
+            Integer rows = tx.execute(status -> {
+                queryFactory.delete(memberTeamView).execute();
+                return em.createQuery(
+                    "insert into MemberTeamView"
+                        + " (memberId, username, age, ageGroup, teamId, teamName)"
+                        + " select m.id, m.username, m.age, m.ageGroup, t.id, t.name"
+                        + " from Member m left join m.team t")
+                    .executeUpdate();
+            });
+            rebuildRequired = false;
+            log.info("member_team_view rebuilt: {} rows", rows);
+            return rows;
+        }
+    }
+
+    public int pendingEvents() {
+        return pending.get();
+    }
+
+    public Timer lag() {
+        return lag;
+    }
+
+    private void enqueue(Object event) {
+        queue.add(new Pending(event, System.nanoTime()));
+        pending.incrementAndGet();
+    }
+
+    private int applyBatch() {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        Pending next;
+        while (batch.size() < BATCH_SIZE && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            tx.executeWithoutResult(status -> batch.forEach(p -> apply(p.event)));
+        } catch (RuntimeException e) {
+            log.error("member_team_view update failed, rebuilding on next flush", e);
+            rebuildRequired = true;
+        }
+
+        long now = System.nanoTime();
+        for (Pending p : batch) {
+            lag.record(now - p.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+        pending.addAndGet(-batch.size());
+        return batch.size();
+    }
+
+    private void apply(Object event) {
+        if (event instanceof MemberChangedEvent) {
+            apply((MemberChangedEvent) event);
+        } else if (event instanceof TeamChangedEvent) {
+            apply((TeamChangedEvent) event);
+        } else {
+            apply((BulkChangedEvent) event);
+        }
+    }
+
+    /**
+     * 벌크 update 로 바뀐 행은 모두 이벤트의 changeSeq 를 가지므로 그 번호로 다시 읽어 한 건씩 반영한다. 벌크 delete 는 지운 id 를
+     * 반영한다.
+     */
+    private void apply(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class && event.getType() == ChangeType.DELETE) {
+            for (List<Long> ids : InLists.chunks(event.getIds())) {
+                queryFactory.delete(memberTeamView)
+                    .where(memberTeamView.memberId.in(ids))
+                    .execute();
+            }
+            em.flush();
+            em.clear();
+        } else if (event.getEntityType() == Member.class) {
+            for (Tuple row : queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(member.changeSeq.eq(event.getChangeSeq()))
+                .fetch()) {
+                apply(new MemberChangedEvent(ChangeType.UPDATE, null,
+                    new MemberState(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(member.team.id))));
+            }
+        } else if (event.getEntityType() == Team.class && event.getType() == ChangeType.DELETE) {
+            event.getIds().forEach(id -> apply(new TeamChangedEvent(ChangeType.DELETE, id, null,
+                null)));
+        } else if (event.getEntityType() == Team.class) {
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team)
+                .where(team.changeSeq.eq(event.getChangeSeq()))
+                .fetch()) {
+                apply(new TeamChangedEvent(ChangeType.UPDATE, row.get(team.id),
+                    row.get(team.name), null));
+            }
+        }
+    }
+
+    private void apply(MemberChangedEvent event) {
+        MemberTeamView view = em.find(MemberTeamView.class, event.getMemberId());
+        if (event.getType() == ChangeType.DELETE) {
+            if (view != null) {
+                em.remove(view);
+            }
+            return;
+        }
+
+        MemberState after = event.getAfter();
+        String teamName = null;
+        if (after.getTeamId() != null) {
+            Team team = em.find(Team.class, after.getTeamId());
+            teamName = team == null ? null : team.getName();
+        }
+        int ageGroup = ageGroups.groupOf(after.getAge());
+        if (view == null) {
+            em.persist(new MemberTeamView(after.getId(), after.getUsername(), after.getAge(),
+                ageGroup, after.getTeamId(), teamName));
+        } else {
+            view.update(after.getUsername(), after.getAge(), ageGroup, after.getTeamId(),
+                teamName);
+        }
+    }
+
+    private void apply(TeamChangedEvent event) {
+        if (event.getType() == ChangeType.DELETE) {
+            queryFactory.update(memberTeamView)
+                .setNull(memberTeamView.teamId)
+                .setNull(memberTeamView.teamName)
+                .where(memberTeamView.teamId.eq(event.getTeamId()))
+                .execute();
+        } else {
+            queryFactory.update(memberTeamView)
+                .set(memberTeamView.teamName, event.getName())
+                .where(memberTeamView.teamId.eq(event.getTeamId()))
+                .execute();
+        }
+        // 벌크 update 는 영속성 컨텍스트를 거치지 않는다. 이후 find 가 옛 값을 보지 않도록 비운다.
+        em.flush();
+        em.clear();
+    }
+
+    private static final class Pending {
+
+        private final Object event;
+        private final long enqueuedAt;
+
+        private Pending(Object event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
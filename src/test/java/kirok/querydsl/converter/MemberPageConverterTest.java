@@ -0,0 +1,74 @@
+package kirok.querydsl.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import kirok.querydsl.dto.MemberPageColumns;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+class MemberPageConverterTest {
+
+    private static MemberPageColumns page() {
+        MemberPageColumns page = new MemberPageColumns(1, 2, 5, 2);
+        page.add(3L, "member3", 30, 1L, "teamA");
+        page.add(4L, "회원4", 40, null, null);
+        return page;
+    }
+
+    @Test
+    public void writeColumnarJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        new ColumnarJsonMemberPageConverter(objectMapper)
+            .write(page(), MemberPageMediaTypes.COLUMNAR_JSON, message);
+
+        JsonNode json = objectMapper.readTree(message.getBodyAsBytes());
+        assertThat(json.get("memberId").toString()).isEqualTo("[3,4]");
+        assertThat(json.get("username").toString()).isEqualTo("[\"member3\",\"회원4\"]");
+        assertThat(json.get("age").toString()).isEqualTo("[30,40]");
+        assertThat(json.get("teamId").toString()).isEqualTo("[1,null]");
+        assertThat(json.get("teamName").toString()).isEqualTo("[\"teamA\",null]");
+        assertThat(json.get("page").get("totalElements").asLong()).isEqualTo(5);
+        assertThat(json.get("page").get("totalPages").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    public void writeBinary() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        new BinaryMemberPageConverter().write(page(), MemberPageMediaTypes.BINARY, message);
+
+        DataInputStream in =
+            new DataInputStream(new ByteArrayInputStream(message.getBodyAsBytes()));
+        assertThat(in.readInt()).isEqualTo(BinaryMemberPageConverter.MAGIC);
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readInt()).isEqualTo(2);
+        assertThat(in.readLong()).isEqualTo(5);
+        assertThat(in.readInt()).isEqualTo(2);
+        assertThat(new long[]{in.readLong(), in.readLong()}).containsExactly(3, 4);
+        assertThat(new int[]{in.readInt(), in.readInt()}).containsExactly(30, 40);
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        assertThat(new long[]{in.readLong(), in.readLong()}).containsExactly(1, 0);
+        assertThat(readString(in)).isEqualTo("member3");
+        assertThat(readString(in)).isEqualTo("회원4");
+        assertThat(readString(in)).isEqualTo("teamA");
+        assertThat(readString(in)).isNull();
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    private static String readString(DataInputStream in) throws Exception {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,95 @@
+package kirok.querydsl.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicationRoutingDataSourceTest {
+
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+
+        lagMonitor = new ReplicaLagMonitor(replica, null, Duration.ofSeconds(1));
+        ReplicationRoutingDataSource routing =
+            new ReplicationRoutingDataSource(lagMonitor, Duration.ofSeconds(1));
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceType.PRIMARY, primary);
+        targets.put(DataSourceType.REPLICA, replica);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager =
+            new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+
+        ReadYourWrites.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        lagMonitor.close();
+    }
+
+    @Test
+    void readOnlyGoesToReplica() {
+        assertThat(readOnly.execute(status -> origin())).isEqualTo("replica");
+        assertThat(readWrite.execute(status -> origin())).isEqualTo("primary");
+    }
+
+    @Test
+    void readYourWritesWithinRequest() {
+        readWrite.executeWithoutResult(status -> origin());
+
+        assertThat(readOnly.execute(status -> origin())).isEqualTo("primary");
+
+        ReadYourWrites.clear();
+        assertThat(readOnly.execute(status -> origin())).isEqualTo("replica");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        lagMonitor.update(Duration.ofSeconds(5));
+        assertThat(readOnly.execute(status -> origin())).isEqualTo("primary");
+
+        lagMonitor.update(Duration.ofMillis(500));
+        assertThat(readOnly.execute(status -> origin())).isEqualTo("replica");
+    }
+
+    private String origin() {
+        return jdbcTemplate.queryForObject("select name from origin", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop table if exists origin");
+        jdbc.execute("create table origin (name varchar(20))");
+        jdbc.update("insert into origin values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,38 @@
+package kirok.querydsl.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+    @AfterEach
+    public void clear() {
+        Deadline.clear();
+    }
+
+    @Test
+    public void noDeadline() {
+        assertThat(Deadline.active()).isFalse();
+        assertThat(Deadline.timeoutSeconds()).isEqualTo(0);
+    }
+
+    @Test
+    public void roundUpToSeconds() {
+        Deadline.start(Duration.ofMillis(300));
+        assertThat(Deadline.timeoutSeconds()).isEqualTo(1);
+
+        Deadline.start(Duration.ofMillis(2500));
+        assertThat(Deadline.timeoutSeconds()).isEqualTo(3);
+    }
+
+    @Test
+    public void exceeded() {
+        Deadline.start(Duration.ofMillis(-1));
+        assertThatThrownBy(Deadline::timeoutSeconds)
+            .isInstanceOf(DeadlineExceededException.class);
+    }
+}
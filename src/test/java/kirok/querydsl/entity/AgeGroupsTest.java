@@ -0,0 +1,27 @@
+package kirok.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class AgeGroupsTest {
+
+    AgeGroups ageGroups = new AgeGroups(new int[]{20, 30, 40, 60});
+
+    @Test
+    public void groupOf() {
+        assertThat(ageGroups.size()).isEqualTo(5);
+        assertThat(ageGroups.groupOf(0)).isEqualTo(0);
+        assertThat(ageGroups.groupOf(19)).isEqualTo(0);
+        assertThat(ageGroups.groupOf(20)).isEqualTo(1);
+        assertThat(ageGroups.groupOf(59)).isEqualTo(3);
+        assertThat(ageGroups.groupOf(60)).isEqualTo(4);
+    }
+
+    @Test
+    public void label() {
+        assertThat(ageGroups.label(0)).isEqualTo("~19");
+        assertThat(ageGroups.label(1)).isEqualTo("20~29");
+        assertThat(ageGroups.label(4)).isEqualTo("60~");
+    }
+}
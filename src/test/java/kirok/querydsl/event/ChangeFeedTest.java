@@ -0,0 +1,115 @@
+package kirok.querydsl.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedTest {
+
+    @Test
+    public void ringBufferDetectsOverrun() {
+        ChangeRingBuffer<String> ring = new ChangeRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            ring.publish("e" + i);
+        }
+        assertThat(ring.read(0)).isEqualTo("e0");
+        assertThat(ring.read(4)).isNull();
+        assertThat(ring.isOverrun(4)).isFalse();
+
+        ring.publish("e4");
+
+        assertThat(ring.read(0)).isNull();
+        assertThat(ring.isOverrun(0)).isTrue();
+        assertThat(ring.read(1)).isEqualTo("e1");
+        assertThat(ring.read(4)).isEqualTo("e4");
+    }
+
+    @Test
+    public void subscribersReceiveEventsInOrder() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChangeFeed feed = new ChangeFeed(true, 16, meterRegistry);
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        feed.subscribe("test", new ChangeListener() {
+            @Override
+            public void onMember(MemberChangedEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onTeam(TeamChangedEvent event) {
+                received.add(event);
+            }
+        });
+
+        MemberChangedEvent member = new MemberChangedEvent(ChangeType.INSERT, null,
+            new MemberState(1L, "member1", 10, null));
+        TeamChangedEvent team = new TeamChangedEvent(ChangeType.INSERT, 2L, "teamA", null);
+        feed.on(member);
+        feed.on(team);
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isSameAs(member);
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isSameAs(team);
+        assertThat(meterRegistry.get("member.change.feed.published").counter().count())
+            .isEqualTo(2);
+        feed.close();
+    }
+
+    @Test
+    public void slowSubscriberSkipsAheadOnOverrun() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChangeFeed feed = new ChangeFeed(true, 4, meterRegistry);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<Long> missed = new LinkedBlockingQueue<>();
+        feed.subscribe("slow", new ChangeListener() {
+            @Override
+            public void onTeam(TeamChangedEvent event) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onOverrun(long skipped) {
+                missed.add(skipped);
+            }
+        });
+
+        feed.on(new TeamChangedEvent(ChangeType.INSERT, 1L, "team0", null));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 8; i++) {
+            feed.on(new TeamChangedEvent(ChangeType.INSERT, (long) i, "team" + i, null));
+        }
+        assertThat(meterRegistry.get("member.change.feed.lag").gauge().value()).isEqualTo(9);
+
+        release.countDown();
+
+        assertThat(missed.poll(5, TimeUnit.SECONDS)).isEqualTo(8);
+        assertThat(meterRegistry.get("member.change.feed.overrun").counter().count())
+            .isEqualTo(1);
+        feed.close();
+    }
+
+    @Test
+    public void closeRemovesSubscriberMeters() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChangeFeed feed = new ChangeFeed(true, 4, meterRegistry);
+        ChangeSubscription subscription = feed.subscribe("closing", new ChangeListener() {
+        });
+        assertThat(meterRegistry.find("member.change.feed.lag").gauges()).hasSize(1);
+
+        subscription.close();
+
+        assertThat(meterRegistry.find("member.change.feed.lag").gauges()).isEmpty();
+        assertThat(meterRegistry.find("member.change.feed.overrun").counters()).isEmpty();
+        assertThat(meterRegistry.find("member.change.feed.published").counters()).hasSize(1);
+    }
+}
@@ -0,0 +1,54 @@
+package kirok.querydsl.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AimdLimiterTest {
+
+    static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void rejectWhenFull() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, TARGET, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void increaseWhenFastAndBusy() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 3, TARGET, 0.5);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(TARGET / 2, false);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(TARGET / 2, false);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    public void decreaseWhenSlowOrDropped() {
+        AimdLimiter limiter = new AimdLimiter(8, 2, 10, TARGET, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(TARGET * 2, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        limiter.tryAcquire();
+        limiter.release(TARGET / 2, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.tryAcquire();
+        limiter.release(TARGET * 2, false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,60 @@
+package kirok.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MemberAgeIndexTest {
+
+    MemberAgeIndex index;
+
+    @BeforeEach
+    public void before() {
+        index = new MemberAgeIndex(null, null, null);
+        ReflectionTestUtils.setField(index, "enabled", true);
+
+        insert(6L, 30);
+        insert(1L, 20);
+        insert(4L, 30);
+        insert(5L, 10);
+        insert(2L, 30);
+        insert(3L, 20);
+    }
+
+    @Test
+    public void idsAscending() {
+        assertThat(index.ids(null, null, 0, 10, false)).containsExactly(5L, 1L, 3L, 2L, 4L, 6L);
+        assertThat(index.ids(20, 30, 1, 3, false)).containsExactly(3L, 2L, 4L);
+        assertThat(index.count(20, 30)).isEqualTo(5);
+    }
+
+    @Test
+    public void idsDescendingKeepsIdOrderWithinAge() {
+        assertThat(index.ids(null, null, 0, 10, true)).containsExactly(2L, 4L, 6L, 1L, 3L, 5L);
+        assertThat(index.ids(null, null, 2, 3, true)).containsExactly(6L, 1L, 3L);
+        assertThat(index.ids(20, 30, 1, 10, true)).containsExactly(4L, 6L, 1L, 3L);
+        assertThat(index.ids(null, 20, 0, 1, true)).containsExactly(1L);
+        assertThat(index.ids(null, null, 6, 10, true)).isEmpty();
+    }
+
+    @Test
+    public void idsAfterUpdateAndDelete() {
+        index.on(new MemberChangedEvent(ChangeType.UPDATE,
+            new MemberState(4L, "member4", 30, null), new MemberState(4L, "member4", 10, null)));
+        index.on(new MemberChangedEvent(ChangeType.DELETE,
+            new MemberState(2L, "member2", 30, null), null));
+
+        assertThat(index.ids(null, null, 0, 10, true)).containsExactly(6L, 1L, 3L, 4L, 5L);
+        assertThat(index.count(10, 10)).isEqualTo(2);
+    }
+
+    private void insert(long id, int age) {
+        index.on(new MemberChangedEvent(ChangeType.INSERT, null,
+            new MemberState(id, "member" + id, age, null)));
+    }
+}
@@ -0,0 +1,105 @@
+package kirok.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import kirok.querydsl.event.TeamChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MemberSnapshotTest {
+
+    MemberSnapshot snapshot;
+
+    @BeforeEach
+    public void before() {
+        snapshot = new MemberSnapshot(null, null);
+        ReflectionTestUtils.setField(snapshot, "enabled", true);
+
+        snapshot.on(new TeamChangedEvent(ChangeType.INSERT, 1L, "teamA", null));
+        snapshot.on(new TeamChangedEvent(ChangeType.INSERT, 2L, "teamB", null));
+
+        insert(4L, "member4", 40, 2L);
+        insert(3L, "member3", 30, 2L);
+        insert(1L, "member1", 10, 1L);
+        insert(2L, "member2", 20, 1L);
+    }
+
+    @Test
+    public void search() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(40);
+        condition.setTeamName("");
+
+        List<MemberTeamDto> result = snapshot.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).extracting("teamName").containsOnly("teamB");
+    }
+
+    @Test
+    public void searchPageSorted() {
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = snapshot.searchPage(new MemberSearchDto(), pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username")
+            .containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    public void searchPageSortKeepsMemberIdOrderForTies() {
+        PageRequest pageRequest = PageRequest.of(0, 4,
+            Sort.by(Sort.Order.desc("teamName"), Sort.Order.asc("username")));
+
+        Page<MemberTeamDto> result = snapshot.searchPage(new MemberSearchDto(), pageRequest);
+
+        assertThat(result.getContent()).extracting("username")
+            .containsExactly("member3", "member4", "member1", "member2");
+        assertThat(snapshot.searchPage(new MemberSearchDto(),
+            PageRequest.of(0, 4, Sort.by("teamId"))).getContent())
+            .extracting("username").containsExactly("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    public void ignoresEventsWhenDisabled() {
+        ReflectionTestUtils.setField(snapshot, "enabled", false);
+        insert(5L, "member5", 50, null);
+        ReflectionTestUtils.setField(snapshot, "enabled", true);
+
+        assertThat(snapshot.search(new MemberSearchDto())).hasSize(4);
+    }
+
+    @Test
+    public void updateDeleteAndTeamRename() {
+        snapshot.on(new MemberChangedEvent(ChangeType.UPDATE, null,
+            new MemberState(1L, "member1", 50, 2L)));
+        snapshot.on(new MemberChangedEvent(ChangeType.DELETE,
+            new MemberState(3L, "member3", 30, 2L), null));
+        snapshot.on(new TeamChangedEvent(ChangeType.UPDATE, 2L, "teamC", "teamB"));
+
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setTeamName("teamC");
+
+        List<MemberTeamDto> result = snapshot.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member1", "member4");
+        assertThat(result.get(0).getAge()).isEqualTo(50);
+    }
+
+    private void insert(Long id, String username, int age, Long teamId) {
+        snapshot.on(new MemberChangedEvent(ChangeType.INSERT, null,
+            new MemberState(id, username, age, teamId)));
+    }
+}
@@ -0,0 +1,79 @@
+package kirok.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RoaringBitmapTest {
+
+    @Test
+    public void andOr() {
+        RoaringBitmap even = new RoaringBitmap();
+        RoaringBitmap small = new RoaringBitmap();
+        for (int i = 0; i < 200_000; i += 2) {
+            even.add(i);
+        }
+        for (int i = 0; i < 10; i++) {
+            small.add(i);
+        }
+
+        RoaringBitmap and = RoaringBitmap.and(even, small);
+        RoaringBitmap or = RoaringBitmap.or(even, small);
+
+        assertThat(even.cardinality()).isEqualTo(100_000);
+        assertThat(and.slice(0, 10)).containsExactly(0, 2, 4, 6, 8);
+        assertThat(or.cardinality()).isEqualTo(100_005);
+        assertThat(or.slice(0, 6)).containsExactly(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void removeAndSlice() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 70_000; i++) {
+            bitmap.add(i);
+        }
+        for (int i = 0; i < 70_000; i += 3) {
+            bitmap.remove(i);
+        }
+
+        assertThat(bitmap.contains(3)).isFalse();
+        assertThat(bitmap.contains(4)).isTrue();
+        assertThat(bitmap.cardinality()).isEqualTo(70_000 - 23_334);
+        assertThat(bitmap.slice(1, 3)).containsExactly(2, 4, 5);
+        assertThat(bitmap.slice(46_665, 10)).containsExactly(69_998);
+    }
+
+    @Test
+    public void orAllAndInPlaceOr() {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        for (int age = 0; age < 50; age++) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (int i = age; i < 200_000; i += 50) {
+                bitmap.add(i);
+            }
+            bitmaps.add(bitmap);
+        }
+
+        RoaringBitmap all = RoaringBitmap.orAll(bitmaps.subList(0, 25));
+        assertThat(all.cardinality()).isEqualTo(100_000);
+        assertThat(all.slice(0, 4)).containsExactly(0, 1, 2, 3);
+        assertThat(all.contains(25)).isFalse();
+
+        RoaringBitmap accumulated = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            accumulated.or(bitmap);
+        }
+        assertThat(accumulated.cardinality()).isEqualTo(200_000);
+        assertThat(bitmaps.get(0).cardinality()).isEqualTo(4_000);
+
+        RoaringBitmap small = new RoaringBitmap();
+        small.add(3);
+        small.add(70_000);
+        small.or(bitmaps.get(1));
+        assertThat(small.slice(0, 3)).containsExactly(1, 3, 51);
+        assertThat(small.contains(70_000)).isTrue();
+        assertThat(bitmaps.get(1).contains(3)).isFalse();
+    }
+}
@@ -0,0 +1,243 @@
+package kirok.querydsl.memory;
+
+import static kirok.querydsl.entity.QTombstone.tombstone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.TeamStatsDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.ChangeFeed;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.TeamChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 컨텍스트의 TeamStatistics 는 꺼져 있으므로 따로 만들고, 커밋 후 이벤트를 받아 넘긴다. 집계 트랜잭션이 커밋되기 직전에
+ * 다른 스레드에서 변경을 커밋해서 집계 중에 이벤트가 들어오게 한다.
+ */
+@SpringBootTest
+class TeamStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ApplicationEventMulticaster multicaster;
+
+    TransactionTemplate tx;
+    HookedTransactionManager hooked;
+    TeamStatistics stats;
+
+    final Queue<Object> held = new ConcurrentLinkedQueue<>();
+    volatile boolean holding;
+    final ApplicationListener<ApplicationEvent> forwarder = this::receive;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        hooked = new HookedTransactionManager(transactionManager);
+        stats = new TeamStatistics(queryFactory, hooked, changeFeed);
+        ReflectionTestUtils.setField(stats, "enabled", true);
+        multicaster.addApplicationListener(forwarder);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        multicaster.removeApplicationListener(forwarder);
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(tombstone).execute();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void eventDuringReconcileIsReplayed() {
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+            return team.getId();
+        });
+        stats.reconcile();
+
+        // 집계 스냅샷을 읽은 뒤에 커밋되므로 집계에는 없고 이벤트로만 들어온다.
+        hooked.beforeCommit = () -> inOtherThread(() -> tx.executeWithoutResult(status ->
+            em.persist(new Member("member2", 30, em.find(Team.class, teamId)))));
+        stats.reconcile();
+
+        assertThat(stats.statistics()).singleElement().satisfies(team -> {
+            assertThat(team.getMemberCount()).isEqualTo(2);
+            assertThat(team.getAgeSum()).isEqualTo(40);
+            assertThat(team.getAgeMin()).isEqualTo(10);
+            assertThat(team.getAgeMax()).isEqualTo(30);
+        });
+    }
+
+    @Test
+    public void eventAlreadyInSnapshotIsNotCountedTwice() {
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+            return team.getId();
+        });
+        stats.reconcile();
+
+        // 커밋은 집계보다 먼저, 이벤트 전달은 집계 중에 일어난다.
+        holding = true;
+        tx.executeWithoutResult(status ->
+            em.persist(new Member("member2", 20, em.find(Team.class, teamId))));
+        holding = false;
+        assertThat(held).hasSize(1);
+        hooked.beforeCommit = this::deliverHeld;
+        stats.reconcile();
+
+        assertThat(stats.statistics()).singleElement().satisfies(team -> {
+            assertThat(team.getMemberCount()).isEqualTo(2);
+            assertThat(team.getAgeSum()).isEqualTo(30);
+        });
+
+        // 집계가 끝난 뒤에 늦게 도착해도 마찬가지이다.
+        holding = true;
+        tx.executeWithoutResult(status ->
+            em.persist(new Member("member3", 40, em.find(Team.class, teamId))));
+        holding = false;
+        stats.reconcile();
+        deliverHeld();
+
+        assertThat(stats.statistics()).singleElement().satisfies(team -> {
+            assertThat(team.getMemberCount()).isEqualTo(3);
+            assertThat(team.getAgeMax()).isEqualTo(40);
+        });
+    }
+
+    @Test
+    public void teamRenameAndDelete() {
+        Long[] teamIds = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            return new Long[]{teamA.getId(), teamB.getId()};
+        });
+        stats.reconcile();
+        assertThat(stats.statistics()).extracting("teamName", "memberCount")
+            .containsExactly(tuple("teamA", 1L), tuple("teamB", 0L));
+
+        tx.executeWithoutResult(status -> em.find(Team.class, teamIds[0]).changeName("teamC"));
+        tx.executeWithoutResult(status -> em.remove(em.find(Team.class, teamIds[1])));
+
+        List<TeamStatsDto> result = stats.statistics();
+        assertThat(result).extracting("teamId").containsExactly(teamIds[0]);
+        assertThat(result).extracting("teamName").containsExactly("teamC");
+        assertThat(result).extracting("memberCount").containsExactly(1L);
+
+        // 집계 중에 바뀐 이름도 새 집계에 남는다.
+        hooked.beforeCommit = () -> inOtherThread(() -> tx.executeWithoutResult(status ->
+            em.find(Team.class, teamIds[0]).changeName("teamD")));
+        stats.reconcile();
+
+        assertThat(stats.statistics()).extracting("teamName").containsExactly("teamD");
+    }
+
+    private void receive(ApplicationEvent event) {
+        if (!(event instanceof PayloadApplicationEvent)) {
+            return;
+        }
+        Object payload = ((PayloadApplicationEvent<?>) event).getPayload();
+        if (!(payload instanceof MemberChangedEvent) && !(payload instanceof TeamChangedEvent)) {
+            return;
+        }
+        if (holding) {
+            held.add(payload);
+        } else {
+            deliver(payload);
+        }
+    }
+
+    private void deliverHeld() {
+        Object payload;
+        while ((payload = held.poll()) != null) {
+            deliver(payload);
+        }
+    }
+
+    private void deliver(Object payload) {
+        if (payload instanceof MemberChangedEvent) {
+            stats.on((MemberChangedEvent) payload);
+        } else {
+            stats.on((TeamChangedEvent) payload);
+        }
+    }
+
+    /**
+     * 집계 트랜잭션이 이 스레드에 묶여 있으므로 다른 트랜잭션은 다른 스레드에서 커밋한다.
+     */
+    private static void inOtherThread(Runnable runnable) {
+        CompletableFuture.runAsync(runnable).join();
+    }
+
+    /**
+     * 커밋 직전에 한 번 끼어드는 트랜잭션 매니저. TeamStatistics 는 집계에만 트랜잭션을 쓴다.
+     */
+    static class HookedTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        volatile Runnable beforeCommit;
+
+        HookedTransactionManager(PlatformTransactionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            Runnable hook = beforeCommit;
+            beforeCommit = null;
+            if (hook != null) {
+                hook.run();
+            }
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package kirok.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.MemberState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class UsernameIndexTest {
+
+    UsernameIndex index;
+
+    @BeforeEach
+    public void before() {
+        index = new UsernameIndex(null, null, null);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "loaded", true);
+        ReflectionTestUtils.setField(index, "maxCandidates", 100);
+
+        insert(1L, "alice");
+        insert(2L, "alicia");
+        insert(3L, "bob");
+        insert(4L, "malice");
+        insert(5L, "al");
+        insert(6L, "alice");
+    }
+
+    @Test
+    public void prefix() {
+        assertThat(index.candidates(condition("ali", null))).containsExactly(1L, 2L, 6L);
+        assertThat(index.candidates(condition("alice", null))).containsExactly(1L, 6L);
+        assertThat(index.candidates(condition("x", null))).isEmpty();
+    }
+
+    @Test
+    public void contains() {
+        assertThat(index.candidates(condition(null, "lic"))).containsExactly(1L, 2L, 4L, 6L);
+        // n-gram 후보를 실제 포함 여부로 다시 거른다.
+        assertThat(index.candidates(condition(null, "lice"))).containsExactly(1L, 4L, 6L);
+        assertThat(index.candidates(condition(null, "zzz"))).isEmpty();
+        assertThat(index.candidates(condition("al", "cia"))).containsExactly(2L);
+    }
+
+    @Test
+    public void containsShorterThanGramScansDictionary() {
+        assertThat(index.candidates(condition(null, "al"))).containsExactly(1L, 2L, 4L, 5L, 6L);
+        assertThat(index.candidates(condition(null, "b"))).containsExactly(3L);
+    }
+
+    @Test
+    public void tooManyCandidatesFallsBackToLike() {
+        ReflectionTestUtils.setField(index, "maxCandidates", 3);
+
+        assertThat(index.candidates(condition(null, "al"))).isNull();
+        assertThat(index.candidates(condition("ali", null))).containsExactly(1L, 2L, 6L);
+    }
+
+    @Test
+    public void noConditionOrUnavailableReturnsNull() {
+        assertThat(index.candidates(new MemberSearchDto())).isNull();
+
+        ReflectionTestUtils.setField(index, "loaded", false);
+        assertThat(index.candidates(condition("ali", null))).isNull();
+    }
+
+    @Test
+    public void followsRenameAndDelete() {
+        index.on(new MemberChangedEvent(ChangeType.UPDATE,
+            new MemberState(1L, "alice", 10, null), new MemberState(1L, "bobby", 10, null)));
+        assertThat(index.candidates(condition("bob", null))).containsExactly(1L, 3L);
+        assertThat(index.candidates(condition(null, "lice"))).containsExactly(4L, 6L);
+
+        delete(6L, "alice");
+        assertThat(index.candidates(condition(null, "lice"))).containsExactly(4L);
+        assertThat(index.candidates(condition("alice", null))).isEmpty();
+
+        delete(4L, "malice");
+        assertThat(index.candidates(condition(null, "lic"))).containsExactly(2L);
+    }
+
+    private void insert(long id, String username) {
+        index.on(new MemberChangedEvent(ChangeType.INSERT, null,
+            new MemberState(id, username, 10, null)));
+    }
+
+    private void delete(long id, String username) {
+        index.on(new MemberChangedEvent(ChangeType.DELETE,
+            new MemberState(id, username, 10, null), null));
+    }
+
+    private static MemberSearchDto condition(String startsWith, String contains) {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setUsernameStartsWith(startsWith);
+        condition.setUsernameContains(contains);
+        return condition;
+    }
+}
@@ -0,0 +1,166 @@
+package kirok.querydsl.repository;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.MemberChangesDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.entity.TombstoneType;
+import kirok.querydsl.version.ChangeSequence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 커밋된 변경만 워터마크 안에 들어오므로 트랜잭션을 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberChangeRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @Autowired
+    MemberChangeRepository memberChangeRepository;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(tombstone).execute();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void changesSinceWatermark() {
+        long start = ChangeSequence.safeWatermark();
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            return new Long[]{teamA.getId(), member1.getId(), member2.getId()};
+        });
+
+        MemberChangesDto first = memberChangeRepository.changesSince(start, null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getTeams()).extracting("name").containsExactly("teamA");
+        assertThat(first.getMembers()).extracting("username").containsExactly("member1");
+
+        MemberChangesDto second = memberChangeRepository
+            .changesSince(first.getWatermark(), first.getAfterId(), 2);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getAfterId()).isNull();
+        assertThat(second.getMembers()).extracting("username").containsExactly("member2");
+        assertThat(second.getTeams()).isEmpty();
+
+        tx.executeWithoutResult(status -> {
+            em.find(Team.class, ids[0]).changeName("teamB");
+            em.remove(em.find(Member.class, ids[1]));
+            queryFactory.delete(member).where(member.id.eq(ids[2])).execute();
+        });
+
+        MemberChangesDto third = memberChangeRepository
+            .changesSince(second.getWatermark(), second.getAfterId(), 10);
+        assertThat(third.getMembers()).isEmpty();
+        assertThat(third.getTeams()).extracting("name").containsExactly("teamB");
+        assertThat(third.getDeleted()).extracting("type", "id").containsExactlyInAnyOrder(
+            tuple(TombstoneType.MEMBER, ids[1]), tuple(TombstoneType.MEMBER, ids[2]));
+
+        assertThat(memberChangeRepository
+            .changesSince(third.getWatermark(), third.getAfterId(), 10).getDeleted()).isEmpty();
+    }
+
+    @Test
+    public void bulkUpdateAssignsChangeSeq() {
+        long start = ChangeSequence.safeWatermark();
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        long afterInsert = memberChangeRepository.changesSince(start, null, 10).getWatermark();
+
+        tx.executeWithoutResult(status ->
+            queryFactory.update(member).set(member.age, 11).where(member.username.eq("member1"))
+                .execute());
+
+        assertThat(memberChangeRepository.changesSince(afterInsert, null, 10).getMembers())
+            .extracting("age").containsExactly(11);
+    }
+
+    @Test
+    public void bulkUpdatePagesBySeqAndId() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("member" + i, 10));
+            }
+        });
+        long afterInsert = memberChangeRepository.changesSince(0, null, 10).getWatermark();
+        tx.executeWithoutResult(status ->
+            queryFactory.update(member).set(member.age, 11).execute());
+
+        MemberChangesDto first = memberChangeRepository.changesSince(afterInsert, null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getAfterId()).isNotNull();
+        assertThat(first.getMembers()).extracting("username")
+            .containsExactly("member1", "member2");
+
+        MemberChangesDto second = memberChangeRepository
+            .changesSince(first.getWatermark(), first.getAfterId(), 2);
+        assertThat(second.getWatermark()).isEqualTo(first.getWatermark());
+        assertThat(second.getMembers()).extracting("username")
+            .containsExactly("member3", "member4");
+
+        // 남은 행이 size 와 같아도 한 번 더 요청하지 않게 끝났음을 알린다.
+        MemberChangesDto third = memberChangeRepository
+            .changesSince(second.getWatermark(), second.getAfterId(), 1);
+        assertThat(third.getMembers()).extracting("username").containsExactly("member5");
+        assertThat(third.isHasMore()).isFalse();
+        assertThat(third.getAfterId()).isNull();
+    }
+
+    @Test
+    public void bulkDeleteSharesOneSeqAndPagesById() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 1; i <= 3; i++) {
+                em.persist(new Member("member" + i, 10));
+            }
+        });
+        long afterInsert = memberChangeRepository.changesSince(0, null, 10).getWatermark();
+        tx.executeWithoutResult(status -> queryFactory.delete(member).execute());
+
+        MemberChangesDto first = memberChangeRepository.changesSince(afterInsert, null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getDeleted()).hasSize(2);
+        assertThat(first.getDeleted()).extracting("changeSeq").containsOnly(first.getWatermark());
+
+        MemberChangesDto second = memberChangeRepository
+            .changesSince(first.getWatermark(), first.getAfterId(), 2);
+        assertThat(second.getDeleted()).hasSize(1);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getDeleted().get(0).getId())
+            .isGreaterThan(first.getDeleted().get(1).getId());
+    }
+}
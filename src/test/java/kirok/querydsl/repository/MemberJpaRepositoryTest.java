@@ -1,10 +1,16 @@
 package kirok.querydsl.repository;
 
+import static kirok.querydsl.entity.QMember.member;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import javax.persistence.EntityManager;
 import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
 import kirok.querydsl.entity.Member;
 import kirok.querydsl.entity.Team;
 import org.junit.jupiter.api.Test;
@@ -22,6 +28,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    JPAQueryFactory queryFactory;
+
 
     @Test
     public void basicTest() {
@@ -100,5 +109,117 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member3", "member4");
     }
 
+    @Test
+    public void searchMemberWithOpenAgeRange() throws Exception {
+
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(20);
+
+        //when
+        List<Member> result = memberJpaRepository.searchMember(condition);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member2", "member3");
+    }
+
+    @Test
+    public void searchImpossibleAgeRange() throws Exception {
+
+        //given
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
 
-}
\ No newline at end of file
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(10);
+
+        //when
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        //then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    public void searchByAgeGroup() throws Exception {
+
+        //given
+        em.persist(new Member("member1", 19));
+        em.persist(new Member("member2", 20));
+        em.persist(new Member("member3", 29));
+        em.persist(new Member("member4", 30));
+        em.flush();
+
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGroup(1);
+
+        //when
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member2", "member3");
+    }
+
+    @Test
+    public void bulkAgeUpdateMovesAgeGroup() throws Exception {
+
+        //given
+        em.persist(new Member("member1", 15));
+        em.persist(new Member("member2", 25));
+        em.persist(new Member("member3", 50));
+        em.flush();
+
+        //when
+        queryFactory.update(member).set(member.age, member.age.add(10)).execute();
+        queryFactory.update(member).set(member.age, 65).where(member.username.eq("member3")).execute();
+        em.clear();
+
+        //then
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGroup(1);
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+            .containsExactly("member1");
+        condition.setAgeGroup(2);
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+            .containsExactly("member2");
+        condition.setAgeGroup(4);
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+            .containsExactly("member3");
+    }
+
+    @Test
+    public void loadMembersInBatch() {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        Member member3 = new Member("member3", 30);
+        memberJpaRepository.save(member1);
+        memberJpaRepository.save(member2);
+        memberJpaRepository.save(member3);
+        em.flush();
+
+        assertThat(memberJpaRepository.findByIds(
+            Arrays.asList(member3.getId(), -1L, member1.getId())).values())
+            .containsExactly(member3, member1);
+
+        MemberLoader loader = new MemberLoader(memberJpaRepository);
+        CompletableFuture<Optional<Member>> first = loader.load(member2.getId());
+        CompletableFuture<Optional<Member>> missing = loader.load(-1L);
+        assertThat(first).isNotDone();
+
+        loader.dispatch();
+
+        assertThat(first.join()).contains(member2);
+        assertThat(missing.join()).isEmpty();
+        assertThat(loader.load(member2.getId())).isDone();
+        assertThat(loader.getAll(Arrays.asList(member3.getId(), -1L, member2.getId())))
+            .containsExactly(member3, member2);
+    }
+}
@@ -0,0 +1,117 @@
+package kirok.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.MemberPageColumns;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchFields() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(20);
+
+        List<Map<String, Object>> result = memberQueryRepository
+            .searchFields(condition, MemberField.parse("username,teamId"));
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).containsOnlyKeys("username", "teamId");
+        assertThat(result.get(0)).containsEntry("username", "member2");
+        // 팀이 없는 회원은 teamId 를 빼고 돌려준다.
+        assertThat(result.get(1)).containsOnlyKeys("username");
+    }
+
+    @Test
+    public void searchFieldsWithTeamName() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setTeamName("teamA");
+
+        List<Map<String, Object>> result = memberQueryRepository
+            .searchFields(condition, MemberField.parse("teamName"));
+
+        assertThat(result).extracting(row -> row.get("teamName"))
+            .containsExactly("teamA", "teamA");
+    }
+
+    @Test
+    public void searchPageColumnsSorted() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(10);
+
+        MemberPageColumns page = memberQueryRepository.searchPageColumns(condition,
+            PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(page.getRowCount()).isEqualTo(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getUsernames()[0]).isEqualTo("member3");
+        assertThat(page.getUsernames()[1]).isEqualTo("member2");
+        assertThat(page.getTeamIds()[0]).isNull();
+    }
+
+    @Test
+    public void searchBatch() {
+        MemberSearchDto member1 = new MemberSearchDto();
+        member1.setUsername("member1");
+        MemberSearchDto member3 = new MemberSearchDto();
+        member3.setUsername("member3");
+        MemberSearchDto missing = new MemberSearchDto();
+        missing.setUsername("missing");
+        MemberSearchDto teamA = new MemberSearchDto();
+        teamA.setTeamName("teamA");
+
+        List<List<MemberTeamDto>> result = memberQueryRepository
+            .searchBatch(Arrays.asList(member1, teamA, member3, missing, member1));
+
+        assertThat(result).hasSize(5);
+        assertThat(result.get(0)).extracting("username").containsExactly("member1");
+        assertThat(result.get(1)).extracting("username")
+            .containsExactlyInAnyOrder("member1", "member2");
+        assertThat(result.get(2)).extracting("teamName").containsExactly((Object) null);
+        assertThat(result.get(3)).isEmpty();
+        assertThat(result.get(4)).isEqualTo(result.get(0));
+    }
+
+    @Test
+    public void parseFields() {
+        assertThat(MemberField.parse(null)).hasSize(MemberField.values().length);
+        assertThat(MemberField.parse(" memberId , age ")).containsExactly(MemberField.MEMBER_ID,
+            MemberField.AGE);
+        assertThatThrownBy(() -> MemberField.parse("password"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package kirok.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, null));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchPageWithBatchedTeam() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        Page<Member> result = memberTestRepository.searchPage(condition,
+            PageRequest.of(0, 3), MemberTestRepository.WITH_TEAM);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).hasSize(3);
+        for (Member member : result.getContent()) {
+            assertThat(Hibernate.isInitialized(member.getTeam())).isTrue();
+            assertThat(member.getTeam().getName()).isIn("teamA", "teamB");
+        }
+    }
+
+    @Test
+    public void searchPageWithTeamGraph() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setTeamName("teamB");
+
+        Page<Member> result = memberTestRepository.searchPage(condition,
+            PageRequest.of(0, 10), MemberTestRepository.WITH_TEAM_GRAPH);
+
+        assertThat(result.getContent()).extracting("username")
+            .containsExactlyInAnyOrder("member3", "member4");
+        for (Member member : result.getContent()) {
+            assertThat(Hibernate.isInitialized(member.getTeam())).isTrue();
+        }
+    }
+
+    @Test
+    public void searchPageWithBatchedTeamUsesTwoQueries() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // 마지막 페이지라 count 쿼리는 생략되고 본문 + 팀 IN 두 번만 나간다.
+        Page<Member> result = memberTestRepository.searchPage(condition,
+            PageRequest.of(0, 10), MemberTestRepository.WITH_TEAM);
+        result.getContent().forEach(member -> member.getTeam().getName());
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        statistics.setStatisticsEnabled(false);
+    }
+}
@@ -0,0 +1,127 @@
+package kirok.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import kirok.querydsl.dto.TeamMembersDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        Team teamD = new Team("teamD");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(teamD);
+
+        // 팀 A 는 배열 초기 크기(8)보다 많게, 이름 순서와 id 순서가 다르게 넣는다.
+        for (int i = 10; i > 0; i--) {
+            em.persist(new Member("memberA" + i, i, teamA));
+            if (i % 5 == 0) {
+                em.persist(new Member("memberB" + i, i, teamB));
+                em.persist(new Member("memberD" + i, i, teamD));
+            }
+        }
+        em.persist(new Member("noTeam", 50, null));
+        em.flush();
+        em.clear();
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void firstPageOrdersTeamsAndMembersById() {
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(
+            PageRequest.of(0, 2));
+
+        // 팀 페이지, 회원 IN, 전체 팀 수 세 번이다.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+
+        List<TeamMembersDto> teams = result.getContent();
+        assertThat(teams).extracting("name").containsExactly("teamA", "teamB");
+        assertThat(usernames(teams.get(0))).containsExactly("memberA10", "memberA9", "memberA8",
+            "memberA7", "memberA6", "memberA5", "memberA4", "memberA3", "memberA2", "memberA1");
+        assertThat(ages(teams.get(0))).containsExactly(10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
+        assertThat(memberIds(teams.get(0))).isSorted();
+        assertThat(usernames(teams.get(1))).containsExactly("memberB10", "memberB5");
+    }
+
+    @Test
+    public void lastPageKeepsTeamsWithoutMembers() {
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(
+            PageRequest.of(1, 3));
+
+        // 마지막 페이지라 count 쿼리는 생략된다.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("name").containsExactly("teamD");
+
+        result = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 4));
+        assertThat(result.getContent()).extracting("name")
+            .containsExactly("teamA", "teamB", "teamC", "teamD");
+        assertThat(result.getContent()).extracting("memberCount").containsExactly(10, 2, 0, 2);
+        assertThat(usernames(result.getContent().get(2))).isEmpty();
+    }
+
+    @Test
+    public void pageBeyondTheEndIsEmpty() {
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(
+            PageRequest.of(5, 2));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    private static String[] usernames(TeamMembersDto team) {
+        return Arrays.copyOf(team.getUsernames(), team.getMemberCount());
+    }
+
+    private static int[] ages(TeamMembersDto team) {
+        return Arrays.copyOf(team.getAges(), team.getMemberCount());
+    }
+
+    private static long[] memberIds(TeamMembersDto team) {
+        return Arrays.copyOf(team.getMemberIds(), team.getMemberCount());
+    }
+}
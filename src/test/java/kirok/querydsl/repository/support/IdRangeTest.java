@@ -0,0 +1,34 @@
+package kirok.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IdRangeTest {
+
+    @Test
+    public void split() {
+        List<IdRange> ranges = IdRange.split(1, 100, 4);
+
+        assertThat(ranges).extracting("from").containsExactly(1L, 26L, 51L, 76L);
+        assertThat(ranges).extracting("to").containsExactly(26L, 51L, 76L, 101L);
+    }
+
+    @Test
+    public void splitSmallRange() {
+        assertThat(IdRange.split(5, 6, 4)).hasSize(2);
+        assertThat(IdRange.split(7, 7, 4)).extracting("to").containsExactly(8L);
+        assertThat(IdRange.split(8, 7, 4)).isEmpty();
+    }
+
+    @Test
+    public void fromBoundaries() {
+        List<IdRange> ranges =
+            IdRange.fromBoundaries(1, 100, Arrays.asList(0L, 10L, 10L, 90L, 200L));
+
+        assertThat(ranges).extracting("from").containsExactly(1L, 10L, 90L);
+        assertThat(ranges).extracting("to").containsExactly(10L, 90L, 101L);
+    }
+}
@@ -0,0 +1,33 @@
+package kirok.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class InListsTest {
+
+    @Test
+    public void pad() {
+        assertThat(InLists.pad(Arrays.asList(1L))).containsExactly(1L);
+        assertThat(InLists.pad(Arrays.asList(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(InLists.pad(Arrays.asList(1L, 2L, 3L, 4L, 5L))).hasSize(8);
+    }
+
+    @Test
+    public void chunks() {
+        List<Long> values = new ArrayList<>();
+        for (long i = 0; i < InLists.MAX_SIZE + 3; i++) {
+            values.add(i);
+        }
+
+        List<List<Long>> chunks = InLists.chunks(values);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).hasSize(InLists.MAX_SIZE);
+        assertThat(chunks.get(1)).containsExactly((long) InLists.MAX_SIZE,
+            InLists.MAX_SIZE + 1L, InLists.MAX_SIZE + 2L, InLists.MAX_SIZE + 2L);
+    }
+}
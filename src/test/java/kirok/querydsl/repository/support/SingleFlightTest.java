@@ -0,0 +1,147 @@
+package kirok.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> singleFlight =
+            new SingleFlight<>("test", Duration.ofSeconds(5), registry);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            return -1;
+        }));
+
+        while (registry.counter("test", "result", "coalesced").count() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void followerRunsItselfAfterTimeout() throws Exception {
+        SingleFlight<String, Integer> singleFlight =
+            new SingleFlight<>("test", Duration.ofMillis(10), registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(singleFlight.execute("key", () -> 2)).isEqualTo(2);
+        assertThat(registry.counter("test", "result", "timeout").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        SingleFlight<String, Integer> singleFlight =
+            new SingleFlight<>("test", Duration.ofSeconds(5), registry);
+
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> 3)).isEqualTo(3);
+    }
+
+    @Test
+    public void followerRetriesOnLeaderScopedFailure() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test",
+            Duration.ofSeconds(5), registry, e -> e instanceof IllegalStateException);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("leader deadline");
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("key", () -> 7));
+
+        while (registry.counter("test", "result", "coalesced").count() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(7);
+        assertThat(registry.counter("test", "result", "retry").count()).isEqualTo(1);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void followerWaitIsBoundedByMaxWait() throws Exception {
+        SingleFlight<String, Integer> singleFlight =
+            new SingleFlight<>("test", Duration.ofSeconds(30), registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        assertThat(singleFlight.execute("key", () -> 2, Duration.ofMillis(20))).isEqualTo(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(registry.counter("test", "result", "timeout").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
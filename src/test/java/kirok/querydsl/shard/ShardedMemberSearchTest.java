@@ -0,0 +1,84 @@
+package kirok.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.dto.MemberTeamDto;
+import kirok.querydsl.entity.MemberTeamView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+class ShardedMemberSearchTest {
+
+    Shards shards;
+    ExecutorService executor;
+    ShardedMemberSearch search;
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        ShardProperties properties = new ShardProperties();
+        properties.setCount(3);
+        properties.setUrlTemplate("jdbc:h2:mem:sharded_member_search_test_%d;DB_CLOSE_DELAY=-1");
+        shards = Shards.create(properties);
+        executor = Executors.newFixedThreadPool(3);
+        search = new ShardedMemberSearch(shards, executor, null, properties);
+
+        for (long id = 1; id <= 30; id++) {
+            Long teamId = id % 5 == 0 ? null : id % 4;
+            String teamName = teamId == null ? null : "team" + teamId;
+            int age = (int) (id * 7 % 50);
+            MemberTeamView view =
+                new MemberTeamView(id, "member" + id, age, 0, teamId, teamName);
+            shards.write(shards.shardOf(teamId), em -> em.persist(view));
+            all.add(new MemberTeamDto(id, "member" + id, age, teamId, teamName));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdown();
+        shards.destroy();
+    }
+
+    @Test
+    public void fanOutPages() {
+        MemberSearchDto condition = new MemberSearchDto();
+        condition.setAgeGoe(10);
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+        List<Long> expected = all.stream()
+            .filter(m -> m.getAge() >= 10)
+            .sorted(Comparator.comparing(MemberTeamDto::getAge).reversed()
+                .thenComparing(MemberTeamDto::getUsername))
+            .map(MemberTeamDto::getMemberId)
+            .collect(Collectors.toList());
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page * 4 < expected.size(); page++) {
+            Page<MemberTeamDto> result = search.search(condition, PageRequest.of(page, 4, sort));
+            assertThat(result.getTotalElements()).isEqualTo(expected.size());
+            result.forEach(m -> paged.add(m.getMemberId()));
+        }
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    @Test
+    public void nullTeamLowest() {
+        Page<MemberTeamDto> result = search.search(new MemberSearchDto(),
+            PageRequest.of(0, 6, Sort.by("teamId")));
+
+        assertThat(result.getTotalElements()).isEqualTo(30);
+        assertThat(result.getContent()).extracting("memberId")
+            .containsExactly(5L, 10L, 15L, 20L, 25L, 30L);
+    }
+}
@@ -0,0 +1,43 @@
+package kirok.querydsl.version;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import kirok.querydsl.entity.ChangeSequenceLease;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ChangeSequenceTest {
+
+    @Test
+    public void watermarkStopsBeforeOpenTransaction() {
+        long committed = ChangeSequence.next();
+        assertThat(ChangeSequence.safeWatermark()).isGreaterThanOrEqualTo(committed);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            long open = ChangeSequence.next();
+            assertThat(ChangeSequence.safeWatermark()).isEqualTo(open - 1);
+
+            for (TransactionSynchronization sync :
+                TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            assertThat(ChangeSequence.safeWatermark()).isGreaterThanOrEqualTo(open);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void leaseBlocksOtherLiveOwner() {
+        ChangeSequenceLease lease = new ChangeSequenceLease(1L, "a", 1_000);
+
+        assertThat(lease.heldByOther("a", 2_000, 30_000)).isFalse();
+        assertThat(lease.heldByOther("b", 2_000, 30_000)).isTrue();
+        assertThat(lease.heldByOther("b", 31_000, 30_000)).isFalse();
+
+        lease.release();
+        assertThat(lease.heldByOther("b", 2_000, 30_000)).isFalse();
+    }
+}
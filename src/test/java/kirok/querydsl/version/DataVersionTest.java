@@ -0,0 +1,150 @@
+package kirok.querydsl.version;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.persistence.EntityManager;
+import kirok.querydsl.dto.MemberSearchDto;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 버전은 커밋된 뒤에 올라가므로 트랜잭션을 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest
+class DataVersionTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventMulticaster multicaster;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(tombstone).execute();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void committedChangesBumpVersionOncePerTransaction() {
+        long start = DataVersion.current();
+
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+            em.persist(new Member("member2", 20, team));
+            em.flush();
+            assertThat(DataVersion.current()).isEqualTo(start);
+            return team.getId();
+        });
+        long afterInsert = DataVersion.current();
+        assertThat(afterInsert).isEqualTo(start + 1);
+
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).changeName("teamB"));
+        assertThat(DataVersion.current()).isEqualTo(afterInsert + 1);
+    }
+
+    @Test
+    public void rollbackKeepsVersion() {
+        long start = DataVersion.current();
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(DataVersion.current()).isEqualTo(start);
+    }
+
+    @Test
+    public void bulkUpdateBumpsVersion() {
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        long before = DataVersion.current();
+
+        tx.executeWithoutResult(status ->
+            queryFactory.update(member).set(member.age, member.age.add(1)).execute());
+
+        assertThat(DataVersion.current()).isGreaterThan(before);
+    }
+
+    @Test
+    public void bulkEventIsAppliedBeforeVersionBump() {
+        List<Long> versionsSeen = new CopyOnWriteArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<BulkChangedEvent>> listener =
+            new ApplicationListener<PayloadApplicationEvent<BulkChangedEvent>>() {
+                @Override
+                public void onApplicationEvent(PayloadApplicationEvent<BulkChangedEvent> event) {
+                    versionsSeen.add(DataVersion.current());
+                }
+            };
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        long before = DataVersion.current();
+
+        multicaster.addApplicationListener(listener);
+        try {
+            // 엔티티 변경이 버전 콜백을 먼저 등록한 뒤에 벌크 update 가 이벤트를 등록한다.
+            tx.executeWithoutResult(status -> {
+                em.persist(new Member("member2", 20));
+                em.flush();
+                queryFactory.update(member).set(member.age, member.age.add(1)).execute();
+            });
+        } finally {
+            multicaster.removeApplicationListener(listener);
+        }
+
+        assertThat(versionsSeen).containsExactly(before);
+        assertThat(DataVersion.current()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void etagFollowsVersionAndNormalizedCondition() {
+        MemberSearchDto blank = new MemberSearchDto();
+        blank.setUsername("");
+        MemberSearchDto none = new MemberSearchDto();
+        PageRequest page = PageRequest.of(0, 20);
+
+        String etag = MemberPageETags.etag("v2", none, page);
+        assertThat(MemberPageETags.etag("v2", blank, page)).isEqualTo(etag);
+        assertThat(MemberPageETags.etag("v3", none, page)).isNotEqualTo(etag);
+        assertThat(MemberPageETags.etag("v2", none, PageRequest.of(1, 20))).isNotEqualTo(etag);
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+
+        assertThat(MemberPageETags.etag("v2", none, page)).isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,205 @@
+package kirok.querydsl.view;
+
+import static kirok.querydsl.entity.QMember.member;
+import static kirok.querydsl.entity.QMemberTeamView.memberTeamView;
+import static kirok.querydsl.entity.QTeam.team;
+import static kirok.querydsl.entity.QTombstone.tombstone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import javax.persistence.EntityManager;
+import kirok.querydsl.entity.AgeGroups;
+import kirok.querydsl.entity.Member;
+import kirok.querydsl.entity.MemberTeamView;
+import kirok.querydsl.entity.Team;
+import kirok.querydsl.event.BulkChangedEvent;
+import kirok.querydsl.event.ChangeType;
+import kirok.querydsl.event.MemberChangedEvent;
+import kirok.querydsl.event.TeamChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 컨텍스트의 갱신기는 꺼져 있으므로 따로 만들고, 커밋 후 이벤트를 넘긴 뒤 flush() 를 직접 불러 member_team_view 를 확인한다.
+ */
+@SpringBootTest
+class MemberTeamViewUpdaterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    AgeGroups ageGroups;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventMulticaster multicaster;
+
+    TransactionTemplate tx;
+    MemberTeamViewUpdater updater;
+    final ApplicationListener<ApplicationEvent> forwarder = this::receive;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        updater = new MemberTeamViewUpdater(em, queryFactory, ageGroups, transactionManager,
+            new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(updater, "enabled", true);
+        multicaster.addApplicationListener(forwarder);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        multicaster.removeApplicationListener(forwarder);
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(memberTeamView).execute();
+            queryFactory.delete(tombstone).execute();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void appliesMemberChangesInBatches() {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 1200; i++) {
+                em.persist(new Member("member" + i, i % 50, teamA));
+            }
+            return teamA.getId();
+        });
+        assertThat(updater.pendingEvents()).isEqualTo(1200);
+
+        updater.flush();
+
+        assertThat(updater.pendingEvents()).isZero();
+        assertThat(views()).hasSize(1200).allSatisfy(view -> {
+            assertThat(view.getTeamId()).isEqualTo(teamId);
+            assertThat(view.getTeamName()).isEqualTo("teamA");
+            assertThat(view.getAgeGroup()).isEqualTo(ageGroups.groupOf(view.getAge()));
+        });
+
+        tx.executeWithoutResult(status -> {
+            em.remove(em.createQuery("select m from Member m where m.username = 'member1'",
+                Member.class).getSingleResult());
+            em.persist(new Member("member1200", 45, em.find(Team.class, teamId)));
+        });
+        updater.flush();
+
+        List<MemberTeamView> views = views();
+        assertThat(views).hasSize(1200);
+        assertThat(views).extracting("username").doesNotContain("member1");
+        assertThat(views).filteredOn("username", "member1200")
+            .extracting("age", "ageGroup", "teamName")
+            .containsExactly(tuple(45, ageGroups.groupOf(45), "teamA"));
+    }
+
+    @Test
+    public void appliesTeamRenameAndBulkTeamRename() {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            return teamA.getId();
+        });
+        updater.flush();
+
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).changeName("teamB"));
+        updater.flush();
+        assertThat(views()).extracting("teamName").containsOnly("teamB");
+
+        tx.executeWithoutResult(status -> queryFactory.update(team)
+            .set(team.name, "teamC")
+            .where(team.id.eq(teamId))
+            .execute());
+        updater.flush();
+        assertThat(views()).hasSize(2).extracting("teamName").containsOnly("teamC");
+    }
+
+    @Test
+    public void appliesMemberBulkUpdateAndDelete() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 15, teamA));
+            em.persist(new Member("member2", 25, teamA));
+            em.persist(new Member("member3", 35, teamA));
+        });
+        updater.flush();
+
+        tx.executeWithoutResult(status ->
+            queryFactory.update(member).set(member.age, member.age.add(10)).execute());
+        updater.flush();
+        assertThat(views()).extracting("username", "age", "ageGroup").containsExactly(
+            tuple("member1", 25, ageGroups.groupOf(25)),
+            tuple("member2", 35, ageGroups.groupOf(35)),
+            tuple("member3", 45, ageGroups.groupOf(45)));
+
+        tx.executeWithoutResult(status ->
+            queryFactory.delete(member).where(member.age.goe(35)).execute());
+        updater.flush();
+        assertThat(views()).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    public void rebuildsAfterFailedBatch() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20));
+        });
+        // 반영할 수 없는 이벤트가 섞이면 그 배치는 통째로 롤백된다.
+        updater.on(new MemberChangedEvent(ChangeType.UPDATE, null, null));
+
+        updater.flush();
+        assertThat(views()).isEmpty();
+
+        updater.flush();
+        assertThat(views()).extracting("username", "teamName").containsExactly(
+            tuple("member1", "teamA"),
+            tuple("member2", null));
+        assertThat(updater.pendingEvents()).isZero();
+    }
+
+    private List<MemberTeamView> views() {
+        em.clear();
+        return queryFactory.selectFrom(memberTeamView)
+            .orderBy(memberTeamView.memberId.asc())
+            .fetch();
+    }
+
+    private void receive(ApplicationEvent event) {
+        if (!(event instanceof PayloadApplicationEvent)) {
+            return;
+        }
+        Object payload = ((PayloadApplicationEvent<?>) event).getPayload();
+        if (payload instanceof MemberChangedEvent) {
+            updater.on((MemberChangedEvent) payload);
+        } else if (payload instanceof TeamChangedEvent) {
+            updater.on((TeamChangedEvent) payload);
+        } else if (payload instanceof BulkChangedEvent) {
+            updater.on((BulkChangedEvent) payload);
+        }
+    }
+}